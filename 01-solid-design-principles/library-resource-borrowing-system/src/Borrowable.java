@@ -1,4 +1,9 @@
 public interface Borrowable {
     String getResourceType();
     String getTitle();
+
+    // Digital resources are limited by seat licenses rather than physical copies
+    default boolean isDigital() {
+        return false;
+    }
 }
@@ -0,0 +1,284 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class CirculationDesk {
+    private static final int STRIPES = 64;
+
+    // A slot stays null until its title is fully registered, so readers of a reserved but
+    // unwritten ID see an unknown title rather than a half-built one
+    private final AtomicReferenceArray<Borrowable> titles;
+    private final AtomicIntegerArray limits;
+    private final AtomicIntegerArray onLoan;
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final AtomicInteger titleCount = new AtomicInteger();
+    private final TitleStripe[] titleIndex = new TitleStripe[STRIPES];
+    private final LoanStripe[] loans = new LoanStripe[STRIPES];
+
+    public CirculationDesk(int capacity) {
+        this.titles = new AtomicReferenceArray<>(capacity);
+        this.limits = new AtomicIntegerArray(capacity);
+        this.onLoan = new AtomicIntegerArray(capacity);
+        for (int i = 0; i < STRIPES; i++) {
+            titleIndex[i] = new TitleStripe(Math.max(16, capacity / STRIPES));
+            loans[i] = new LoanStripe();
+        }
+    }
+
+    // Registers a title with its copies, or its seat licenses if it is digital, and returns its title ID
+    public int addTitle(Borrowable resource, int copiesOrSeats) {
+        if (copiesOrSeats < 0) {
+            throw new IllegalArgumentException("Copies must not be negative");
+        }
+        TitleStripe stripe = titleIndex[stripeOf(System.identityHashCode(resource))];
+        synchronized (stripe) {
+            int existing = stripe.find(resource);
+            if (existing >= 0) {
+                throw new IllegalArgumentException("Already registered: " + resource.getTitle());
+            }
+            int id = nextId.getAndIncrement();
+            if (id >= titles.length()) {
+                nextId.decrementAndGet();
+                throw new IllegalStateException("Catalog is full at " + titles.length() + " titles");
+            }
+            limits.set(id, copiesOrSeats);
+            // Publishes the title together with its limit
+            titles.set(id, resource);
+            stripe.put(resource, id);
+            titleCount.incrementAndGet();
+            return id;
+        }
+    }
+
+    public int findTitleId(Borrowable resource) {
+        TitleStripe stripe = titleIndex[stripeOf(System.identityHashCode(resource))];
+        synchronized (stripe) {
+            return stripe.find(resource);
+        }
+    }
+
+    public Borrowable getTitle(int titleId) {
+        return title(titleId);
+    }
+
+    public int getTitleCount() {
+        return titleCount.get();
+    }
+
+    // Physical copies can be added to books and journals; digital titles change their seat licenses instead
+    public void addCopies(int titleId, int copies) {
+        Borrowable title = title(titleId);
+        if (title.isDigital()) {
+            throw new IllegalArgumentException(title.getTitle() + " is digital; set its seat licenses instead");
+        }
+        limits.addAndGet(titleId, copies);
+    }
+
+    // Lowering the limit below the seats in use only blocks new loans; existing loans keep their seats
+    public void setSeatLicenses(int titleId, int seats) {
+        Borrowable title = title(titleId);
+        if (!title.isDigital()) {
+            throw new IllegalArgumentException(title.getTitle() + " is physical; add copies instead");
+        }
+        limits.set(titleId, seats);
+    }
+
+    public int getAvailable(int titleId) {
+        checkId(titleId);
+        return Math.max(0, limits.get(titleId) - onLoan.get(titleId));
+    }
+
+    public int getOnLoan(int titleId) {
+        checkId(titleId);
+        return onLoan.get(titleId);
+    }
+
+    public boolean borrow(Student student, Borrowable resource) {
+        int titleId = findTitleId(resource);
+        if (titleId < 0) {
+            throw new IllegalArgumentException("Not in the catalog: " + resource.getTitle());
+        }
+        return borrow(student, titleId);
+    }
+
+    // Returns false if no copy or seat is free, or the student already has this title
+    public boolean borrow(Student student, int titleId) {
+        checkId(titleId);
+        LoanStripe stripe = loans[stripeOf(student.getStudentNo().hashCode())];
+        synchronized (stripe) {
+            LoanList held = stripe.loansBy.get(student.getStudentNo());
+            if (held != null && held.contains(titleId)) {
+                return false;
+            }
+            if (!takeCopy(titleId)) {
+                return false;
+            }
+            if (held == null) {
+                held = new LoanList();
+                stripe.loansBy.put(student.getStudentNo(), held);
+            }
+            held.add(titleId);
+            return true;
+        }
+    }
+
+    public boolean returnResource(Student student, Borrowable resource) {
+        int titleId = findTitleId(resource);
+        return titleId >= 0 && returnResource(student, titleId);
+    }
+
+    // Returns false if the student does not have this title on loan
+    public boolean returnResource(Student student, int titleId) {
+        checkId(titleId);
+        LoanStripe stripe = loans[stripeOf(student.getStudentNo().hashCode())];
+        synchronized (stripe) {
+            LoanList held = stripe.loansBy.get(student.getStudentNo());
+            if (held == null || !held.remove(titleId)) {
+                return false;
+            }
+            if (held.size == 0) {
+                stripe.loansBy.remove(student.getStudentNo());
+            }
+            onLoan.decrementAndGet(titleId);
+            return true;
+        }
+    }
+
+    public List<Borrowable> getLoans(Student student) {
+        LoanStripe stripe = loans[stripeOf(student.getStudentNo().hashCode())];
+        List<Borrowable> result = new ArrayList<>();
+        synchronized (stripe) {
+            LoanList held = stripe.loansBy.get(student.getStudentNo());
+            if (held != null) {
+                for (int i = 0; i < held.size; i++) {
+                    result.add(titles.get(held.titleIds[i]));
+                }
+            }
+        }
+        return result;
+    }
+
+    // Students on different stripes never contend; only the per-title counter is shared
+    private boolean takeCopy(int titleId) {
+        while (true) {
+            int current = onLoan.get(titleId);
+            if (current >= limits.get(titleId)) {
+                return false;
+            }
+            if (onLoan.compareAndSet(titleId, current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private Borrowable title(int titleId) {
+        Borrowable title = titleId < 0 || titleId >= titles.length() ? null : titles.get(titleId);
+        if (title == null) {
+            throw new IllegalArgumentException("Unknown title ID: " + titleId);
+        }
+        return title;
+    }
+
+    private void checkId(int titleId) {
+        title(titleId);
+    }
+
+    private static int stripeOf(int hash) {
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    // Open-addressing identity map from resource to title ID
+    private static final class TitleStripe {
+        private Borrowable[] keys;
+        private int[] ids;
+        private int size;
+
+        TitleStripe(int expected) {
+            int slots = Integer.highestOneBit(expected * 2 - 1) << 1;
+            keys = new Borrowable[slots];
+            ids = new int[slots];
+        }
+
+        int find(Borrowable resource) {
+            int mask = keys.length - 1;
+            for (int slot = mix(System.identityHashCode(resource)) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == resource) {
+                    return ids[slot];
+                }
+            }
+            return -1;
+        }
+
+        void put(Borrowable resource, int id) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                Borrowable[] oldKeys = keys;
+                int[] oldIds = ids;
+                keys = new Borrowable[oldKeys.length * 2];
+                ids = new int[oldKeys.length * 2];
+                size = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != null) {
+                        put(oldKeys[i], oldIds[i]);
+                    }
+                }
+            }
+            int mask = keys.length - 1;
+            int slot = mix(System.identityHashCode(resource)) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = resource;
+            ids[slot] = id;
+            size++;
+        }
+
+        // Spreads every bit of the identity hash, since the stripe was already chosen by its low bits
+        private static int mix(int hash) {
+            hash ^= hash >>> 16;
+            hash *= 0x85ebca6b;
+            hash ^= hash >>> 13;
+            hash *= 0xc2b2ae35;
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    private static final class LoanStripe {
+        private final Map<String, LoanList> loansBy = new HashMap<>();
+    }
+
+    private static final class LoanList {
+        private int[] titleIds = new int[4];
+        private int size;
+
+        boolean contains(int titleId) {
+            for (int i = 0; i < size; i++) {
+                if (titleIds[i] == titleId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(int titleId) {
+            if (size == titleIds.length) {
+                titleIds = Arrays.copyOf(titleIds, size * 2);
+            }
+            titleIds[size++] = titleId;
+        }
+
+        boolean remove(int titleId) {
+            for (int i = 0; i < size; i++) {
+                if (titleIds[i] == titleId) {
+                    titleIds[i] = titleIds[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CirculationTest {
+    private static final int TITLES = 1_000_000;
+    private static final int THREADS = 8;
+    private static final int STUDENTS_PER_THREAD = 500;
+    private static final int OPERATIONS_PER_THREAD = 500_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        CirculationDesk desk = new CirculationDesk(TITLES);
+        Student dominic = new Student("Dominic Santos", "22-16901-257");
+        Student lara = new Student("Lara Mendoza", "22-15678-429");
+
+        Borrowable book = new Book("Introduction to Java");
+        Borrowable eJournal = new EJournal("Digital Journal of AI Innovations");
+        int bookId = desk.addTitle(book, 1);
+        int eJournalId = desk.addTitle(eJournal, 2);
+
+        check(desk.borrow(dominic, book) && !desk.borrow(lara, book), "last physical copy goes to one student");
+        check(!desk.borrow(dominic, book), "a student cannot borrow the same title twice");
+        check(desk.returnResource(dominic, book) && desk.borrow(lara, book), "a returned copy can be borrowed again");
+        check(!desk.returnResource(dominic, book), "returning a title not on loan is rejected");
+        check(desk.borrow(dominic, eJournal) && desk.borrow(lara, eJournal)
+                && !desk.borrow(new Student("Miguel Tan", "22-19988-135"), eJournal), "seat licenses cap concurrent e-journal readers");
+        desk.setSeatLicenses(eJournalId, 3);
+        check(desk.getAvailable(eJournalId) == 1, "raising the seat licenses frees a seat");
+        check(rejects(() -> desk.addCopies(eJournalId, 1)) && rejects(() -> desk.setSeatLicenses(bookId, 5)),
+                "digital titles take seat licenses and physical titles take copies");
+
+        Random random = new Random(7);
+        for (int i = desk.getTitleCount(); i < TITLES; i++) {
+            switch (i & 3) {
+                case 0: desk.addTitle(new Book("Book " + i), 1 + random.nextInt(3)); break;
+                case 1: desk.addTitle(new Journal("Journal " + i), 1 + random.nextInt(3)); break;
+                case 2: desk.addTitle(new AudioBook("Audio Book " + i), 1 + random.nextInt(5)); break;
+                default: desk.addTitle(new EJournal("E-Journal " + i), 1 + random.nextInt(5)); break;
+            }
+        }
+        check(desk.getTitleCount() == TITLES, TITLES + " titles registered");
+
+        // Students borrow and return a small hot set of titles so loans contend on the same counters
+        AtomicLong borrowed = new AtomicLong();
+        Thread[] workers = new Thread[THREADS];
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            int threadNo = t;
+            workers[t] = new Thread(() -> {
+                Random r = new Random(threadNo);
+                Student[] students = new Student[STUDENTS_PER_THREAD];
+                for (int s = 0; s < students.length; s++) {
+                    students[s] = new Student("Student " + threadNo + "-" + s, threadNo + "-" + s);
+                }
+                for (int op = 0; op < OPERATIONS_PER_THREAD; op++) {
+                    Student student = students[r.nextInt(students.length)];
+                    int titleId = 2 + r.nextInt(1_000);
+                    if (desk.borrow(student, titleId)) {
+                        borrowed.incrementAndGet();
+                    } else {
+                        desk.returnResource(student, titleId);
+                    }
+                }
+                for (Student student : students) {
+                    for (Borrowable resource : desk.getLoans(student)) {
+                        desk.returnResource(student, resource);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        boolean allReturned = true;
+        for (int id = 2; id < TITLES; id++) {
+            allReturned &= desk.getOnLoan(id) == 0;
+        }
+        check(allReturned, borrowed.get() + " concurrent loans all returned, no copy lost or duplicated");
+        System.out.println("Throughput: " + (long) (THREADS * (double) OPERATIONS_PER_THREAD * 1e9 / elapsed) + " operations/s");
+
+        checkConcurrentRegistration();
+    }
+
+    // Readers probe IDs while titles are still being registered: an ID is either unknown or complete
+    private static void checkConcurrentRegistration() throws InterruptedException {
+        int capacity = 200_000;
+        CirculationDesk catalog = new CirculationDesk(capacity);
+        Borrowable[] books = new Borrowable[capacity];
+        for (int i = 0; i < capacity; i++) {
+            books[i] = new Book("Title " + i);
+        }
+        AtomicLong failures = new AtomicLong();
+        AtomicInteger next = new AtomicInteger();
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            boolean registrar = t % 2 == 0;
+            threads[t] = new Thread(() -> {
+                Random random = new Random();
+                if (registrar) {
+                    for (int i = next.getAndIncrement(); i < capacity; i = next.getAndIncrement()) {
+                        catalog.addTitle(books[i], 1);
+                    }
+                    return;
+                }
+                while (next.get() < capacity) {
+                    // Probe just below the registered count, where a new title is being published
+                    int id = catalog.getTitleCount() - 1 - random.nextInt(THREADS);
+                    try {
+                        catalog.getTitle(id).getTitle();
+                        catalog.addCopies(id, 1);
+                    } catch (IllegalArgumentException e) {
+                        // Not registered yet
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        boolean complete = catalog.getTitleCount() == capacity;
+        for (int i = 0; i < capacity && complete; i++) {
+            complete = catalog.getTitle(catalog.findTitleId(books[i])) == books[i];
+        }
+        check(failures.get() == 0, "Titles read while being registered are either unknown or complete");
+        check(complete, capacity + " titles registered concurrently, each under its own ID");
+    }
+
+    private static boolean rejects(Runnable action) {
+        try {
+            action.run();
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
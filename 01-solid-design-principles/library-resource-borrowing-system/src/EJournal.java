@@ -14,4 +14,9 @@ public class EJournal implements Borrowable {
     public String getTitle() {
         return title;
     }
+
+    @Override
+    public boolean isDigital() {
+        return true;
+    }
 }
\ No newline at end of file
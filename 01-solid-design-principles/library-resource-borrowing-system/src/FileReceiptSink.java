@@ -0,0 +1,21 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+public class FileReceiptSink implements ReceiptSink, AutoCloseable {
+    private final FileOutputStream out;
+
+    public FileReceiptSink(File file) throws IOException {
+        this.out = new FileOutputStream(file, true);
+    }
+
+    @Override
+    public void write(byte[] data, int length) throws IOException {
+        out.write(data, 0, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,13 @@
+public class NullReceiptSink implements ReceiptSink {
+    private long bytesWritten;
+
+    // Discards receipts but keeps count, for benchmarks and dry runs
+    @Override
+    public void write(byte[] data, int length) {
+        bytesWritten += length;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+}
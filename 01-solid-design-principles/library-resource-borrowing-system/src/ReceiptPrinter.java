@@ -0,0 +1,115 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class ReceiptPrinter {
+    private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HEADER = line("================= Borrowing Transaction =================");
+    private static final byte[] NAME_LABEL = "Student Name : ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NUMBER_LABEL = "Student No.  : ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RESOURCE_LABEL = "Resource     : ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FOOTER = line("=========================================================\n");
+
+    private final ReceiptSink sink;
+    private final CirculationDesk desk;
+    private final byte[] buffer;
+    private int length;
+
+    public ReceiptPrinter(ReceiptSink sink, int bufferSize) {
+        this(sink, null, bufferSize);
+    }
+
+    // With a desk, a receipt is only printed for resources the desk actually lends out
+    public ReceiptPrinter(ReceiptSink sink, CirculationDesk desk, int bufferSize) {
+        this.sink = sink;
+        this.desk = desk;
+        this.buffer = new byte[Math.max(bufferSize, 256)];
+    }
+
+    // Renders one receipt per resource, byte-for-byte the same as Student.borrowResource, and returns how many
+    // were printed. Not thread-safe: use one printer per thread.
+    public int borrowAll(Student student, List<Borrowable> resources) {
+        int printed = 0;
+        for (int i = 0; i < resources.size(); i++) {
+            Borrowable resource = resources.get(i);
+            if (desk != null && !desk.borrow(student, resource)) {
+                continue;
+            }
+            append(HEADER);
+            append(NAME_LABEL);
+            appendLine(student.getName());
+            append(NUMBER_LABEL);
+            appendLine(student.getStudentNo());
+            append(RESOURCE_LABEL);
+            appendText(resource.getResourceType());
+            appendText(" - (");
+            appendText(resource.getTitle());
+            appendLine(")");
+            append(FOOTER);
+            printed++;
+        }
+        flush();
+        return printed;
+    }
+
+    public void flush() {
+        if (length == 0) {
+            return;
+        }
+        try {
+            sink.write(buffer, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            length = 0;
+        }
+    }
+
+    private void append(byte[] bytes) {
+        ensureRoom(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void appendLine(String text) {
+        appendText(text);
+        append(NEWLINE);
+    }
+
+    // Encodes UTF-8 straight into the buffer, so no intermediate String or byte[] is created
+    private void appendText(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            ensureRoom(4);
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer[length++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[length++] = (byte) (0xC0 | (c >> 6));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer[length++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[length++] = (byte) '?';
+            } else {
+                buffer[length++] = (byte) (0xE0 | (c >> 12));
+                buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void ensureRoom(int bytes) {
+        if (length + bytes > buffer.length) {
+            flush();
+        }
+    }
+
+    private static byte[] line(String text) {
+        return (text + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,6 @@
+import java.io.IOException;
+
+public interface ReceiptSink {
+    // Receives rendered receipts in bulk; the array is reused, so copy anything kept past the call
+    void write(byte[] data, int length) throws IOException;
+}
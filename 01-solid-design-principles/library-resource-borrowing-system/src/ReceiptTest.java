@@ -0,0 +1,113 @@
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ReceiptTest {
+    private static final int RECEIPTS = 1_000_000;
+    private static final int BATCH = 1_000;
+
+    public static void main(String[] args) {
+        Student student = new Student("Dominic Santos", "22-16901-257");
+        List<Borrowable> resources = Arrays.asList(
+                new Book("Introduction to Java"),
+                new Journal("AI Research Journal"),
+                new AudioBook("Learn Java by Listening"),
+                new EJournal("Digital Journal of AI Innovations"));
+
+        ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(legacy, true));
+        for (Borrowable resource : resources) {
+            student.borrowResource(resource);
+        }
+        System.setOut(console);
+        ByteArrayOutputStream rendered = new ByteArrayOutputStream();
+        new ReceiptPrinter((data, length) -> rendered.write(data, 0, length), 256).borrowAll(student, resources);
+        check(Arrays.equals(legacy.toByteArray(), rendered.toByteArray()), "rendered receipts match borrowResource byte for byte");
+
+        CirculationDesk desk = new CirculationDesk(16);
+        desk.addTitle(resources.get(0), 1);
+        desk.addTitle(resources.get(1), 0);
+        desk.addTitle(resources.get(2), 1);
+        desk.addTitle(resources.get(3), 1);
+        NullReceiptSink counted = new NullReceiptSink();
+        check(new ReceiptPrinter(counted, desk, 256).borrowAll(student, resources) == 3, "no receipt for a title with no copies free");
+
+        List<Borrowable> batch = new ArrayList<>();
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(resources.get(i % resources.size()));
+        }
+
+        // Both paths discard their output, so the comparison is rendering cost rather than terminal speed
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }, false));
+        try {
+            for (int warmup = 0; warmup < 3; warmup++) {
+                runLegacy(student, batch);
+                runPrinter(student, batch);
+            }
+            long[] legacyCost = runLegacy(student, batch);
+            long[] printerCost = runPrinter(student, batch);
+            System.setOut(console);
+            report("Student.borrowResource", legacyCost);
+            report("ReceiptPrinter.borrowAll", printerCost);
+            check(printerCost[1] <= legacyCost[1], "batch rendering allocates less per receipt");
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    private static long[] runLegacy(Student student, List<Borrowable> batch) {
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < RECEIPTS / BATCH; i++) {
+            for (Borrowable resource : batch) {
+                student.borrowResource(resource);
+            }
+        }
+        return new long[] {System.nanoTime() - start, allocatedBytes() - bytes};
+    }
+
+    private static long[] runPrinter(Student student, List<Borrowable> batch) {
+        ReceiptPrinter printer = new ReceiptPrinter(new NullReceiptSink(), 64 * 1024);
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < RECEIPTS / BATCH; i++) {
+            printer.borrowAll(student, batch);
+        }
+        return new long[] {System.nanoTime() - start, allocatedBytes() - bytes};
+    }
+
+    private static void report(String name, long[] cost) {
+        System.out.println(name + ": " + (long) (RECEIPTS * 1e9 / cost[0]) + " receipts/s, "
+                + cost[1] / RECEIPTS + " bytes allocated per receipt");
+    }
+
+    // HotSpot reports bytes allocated by the current thread; other JVMs fall back to zero
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
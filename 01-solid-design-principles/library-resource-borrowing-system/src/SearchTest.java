@@ -0,0 +1,70 @@
+import java.util.List;
+import java.util.Random;
+
+public class SearchTest {
+    private static final int TITLES = 1_000_000;
+    private static final int QUERIES = 100_000;
+    private static final String[] WORDS = {
+            "introduction", "java", "advanced", "artificial", "intelligence", "research", "digital", "learning",
+            "systems", "design", "patterns", "algorithms", "data", "structures", "networks", "security",
+            "databases", "principles", "modern", "applied", "theory", "practice", "computing", "science"};
+
+    public static void main(String[] args) {
+        TitleSearchIndex index = new TitleSearchIndex();
+        index.add(new Book("Introduction to Java"));
+        index.add(new Journal("AI Research Journal"));
+        index.add(new AudioBook("Learn Java by Listening"));
+        index.add(new EJournal("Digital Journal of AI Innovations"));
+
+        check(index.search("java", 10).size() == 2, "whole-word match across types");
+        check(titles(index.search("intro jav", 10)).equals("[Introduction to Java]"), "query words match as prefixes");
+        check(index.search("journal", 10).size() == 2, "resource type is searchable");
+        check(titles(index.search("ai j", 10)).equals("[AI Research Journal, Digital Journal of AI Innovations]"),
+                "prefix matches title and type words");
+        check(index.search("java journal", 10).isEmpty(), "every word must match");
+        check(index.search("xyz", 10).isEmpty() && index.search("", 10).isEmpty(), "no match returns nothing");
+
+        Random random = new Random(3);
+        for (int i = index.getDocumentCount(); i < TITLES; i++) {
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                    + " " + WORDS[random.nextInt(WORDS.length)] + " volume " + i;
+            switch (i & 3) {
+                case 0: index.add(new Book(title)); break;
+                case 1: index.add(new Journal(title)); break;
+                case 2: index.add(new AudioBook(title)); break;
+                default: index.add(new EJournal(title)); break;
+            }
+        }
+        check(index.getDocumentCount() == TITLES, TITLES + " titles indexed");
+        check(index.search("volume 999999", 10).size() == 1, "incrementally added title is found");
+
+        String[] queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String prefix = WORDS[random.nextInt(WORDS.length)];
+            queries[i] = WORDS[random.nextInt(WORDS.length)] + " book " + prefix.substring(0, 1 + random.nextInt(prefix.length()));
+        }
+        long found = 0;
+        long start = System.nanoTime();
+        for (String query : queries) {
+            found += index.search(query, 20).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        check(found > 0, "benchmark queries matched " + found + " titles");
+        System.out.println("Average query latency: " + elapsed / QUERIES / 1000 + " us");
+    }
+
+    private static String titles(List<Borrowable> resources) {
+        StringBuilder joined = new StringBuilder("[");
+        for (Borrowable resource : resources) {
+            joined.append(joined.length() > 1 ? ", " : "").append(resource.getTitle());
+        }
+        return joined.append("]").toString();
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
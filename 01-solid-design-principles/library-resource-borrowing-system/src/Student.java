@@ -7,6 +7,14 @@ public class Student {
         this.studentNo = studentNo;
     }
 
+    public String getName() {
+        return name;
+    }
+
+    public String getStudentNo() {
+        return studentNo;
+    }
+
     public void borrowResource(Borrowable borrow) {
         System.out.println("================= Borrowing Transaction =================");
         System.out.println("Student Name : " + name);
@@ -0,0 +1,397 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class TitleSearchIndex {
+    private static final int EXHAUSTED = Integer.MAX_VALUE;
+    // A skip entry every 64 postings lets an intersection jump over blocks of a long list
+    private static final int SKIP_INTERVAL = 64;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final PrefixTrie trie = new PrefixTrie();
+    private Borrowable[] documents = new Borrowable[1024];
+    private int documentCount;
+    private PostingList[] postings = new PostingList[1024];
+    private int termCount;
+
+    // Indexes the title and resource type words, returning the document ID; searchable immediately
+    public int add(Borrowable resource) {
+        List<String> words = tokenize(resource.getTitle() + " " + resource.getResourceType());
+        lock.writeLock().lock();
+        try {
+            if (documentCount == documents.length) {
+                documents = Arrays.copyOf(documents, documentCount * 2);
+            }
+            int documentId = documentCount++;
+            documents[documentId] = resource;
+            for (String word : words) {
+                postingsFor(word).add(documentId);
+            }
+            return documentId;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Every query word must start some word of the title or type, so "intro jav" finds "Introduction to Java".
+    // Results come back in the order the resources were added.
+    public List<Borrowable> search(String query, int limit) {
+        List<String> words = tokenize(query);
+        List<Borrowable> results = new ArrayList<>();
+        if (words.isEmpty() || limit <= 0) {
+            return results;
+        }
+        lock.readLock().lock();
+        try {
+            DocCursor[] cursors = new DocCursor[words.size()];
+            for (int i = 0; i < cursors.length; i++) {
+                cursors[i] = prefixCursor(words.get(i));
+                if (cursors[i] == null) {
+                    return results;
+                }
+            }
+            // The rarest prefix drives the intersection; the others only skip ahead to its candidates
+            Arrays.sort(cursors, (a, b) -> Long.compare(a.cost(), b.cost()));
+            for (int doc = cursors[0].next(); doc != EXHAUSTED && results.size() < limit; ) {
+                int agreed = 1;
+                for (int i = 1; i < cursors.length && agreed == i; i++) {
+                    int found = cursors[i].advance(doc);
+                    if (found == doc) {
+                        agreed++;
+                    } else {
+                        doc = found == EXHAUSTED ? EXHAUSTED : cursors[0].advance(found);
+                    }
+                }
+                if (agreed == cursors.length) {
+                    results.add(documents[doc]);
+                    doc = cursors[0].next();
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private DocCursor prefixCursor(String prefix) {
+        int[] matches = trie.termsWithPrefix(prefix);
+        if (matches.length == 0) {
+            return null;
+        }
+        if (matches.length == 1) {
+            return new PostingCursor(postings[matches[0]]);
+        }
+        PostingCursor[] union = new PostingCursor[matches.length];
+        for (int i = 0; i < matches.length; i++) {
+            union[i] = new PostingCursor(postings[matches[i]]);
+        }
+        return new UnionCursor(union);
+    }
+
+    private PostingList postingsFor(String word) {
+        Integer termId = termIds.get(word);
+        if (termId != null) {
+            return postings[termId];
+        }
+        if (termCount == postings.length) {
+            postings = Arrays.copyOf(postings, termCount * 2);
+        }
+        int id = termCount++;
+        termIds.put(word, id);
+        trie.insert(word, id);
+        return postings[id] = new PostingList();
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    // Ascending document IDs stored as variable-length deltas, usually one byte per posting
+    private static final class PostingList {
+        private byte[] data = new byte[8];
+        private int length;
+        private int count;
+        private int lastDoc = -1;
+        private int[] skipDocs = new int[4];
+        private int[] skipOffsets = new int[4];
+        private int skipCount;
+
+        void add(int doc) {
+            if (doc == lastDoc) {
+                return;
+            }
+            if (count > 0 && count % SKIP_INTERVAL == 0) {
+                if (skipCount == skipDocs.length) {
+                    skipDocs = Arrays.copyOf(skipDocs, skipCount * 2);
+                    skipOffsets = Arrays.copyOf(skipOffsets, skipCount * 2);
+                }
+                skipDocs[skipCount] = lastDoc;
+                skipOffsets[skipCount++] = length;
+            }
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            int delta = doc - lastDoc;
+            while ((delta & ~0x7F) != 0) {
+                data[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            data[length++] = (byte) delta;
+            lastDoc = doc;
+            count++;
+        }
+    }
+
+    private abstract static class DocCursor {
+        // Moves to the next document, or EXHAUSTED
+        abstract int next();
+
+        // Moves to the first document at or after the target, or EXHAUSTED
+        abstract int advance(int target);
+
+        abstract int current();
+
+        abstract long cost();
+    }
+
+    private static final class PostingCursor extends DocCursor {
+        private final PostingList list;
+        private final int end;
+        private final int count;
+        private int position;
+        private int read;
+        private int doc = -1;
+
+        PostingCursor(PostingList list) {
+            this.list = list;
+            this.end = list.length;
+            this.count = list.count;
+        }
+
+        @Override
+        int next() {
+            if (read == count || position >= end) {
+                return doc = EXHAUSTED;
+            }
+            int delta = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = list.data[position++];
+                delta |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            read++;
+            return doc += delta;
+        }
+
+        @Override
+        int advance(int target) {
+            if (doc >= target) {
+                return doc;
+            }
+            int skip = read / SKIP_INTERVAL;
+            int skips = list.skipCount;
+            while (skip < skips && list.skipDocs[skip] < target) {
+                skip++;
+            }
+            if (skip > read / SKIP_INTERVAL) {
+                doc = list.skipDocs[skip - 1];
+                position = list.skipOffsets[skip - 1];
+                read = skip * SKIP_INTERVAL;
+            }
+            while (doc < target) {
+                next();
+            }
+            return doc;
+        }
+
+        @Override
+        int current() {
+            return doc;
+        }
+
+        @Override
+        long cost() {
+            return count;
+        }
+    }
+
+    // Merges the postings of every word sharing a prefix, using a min-heap on each cursor's current document
+    private static final class UnionCursor extends DocCursor {
+        private final PostingCursor[] heap;
+        private int size;
+        private int doc = -1;
+        private final long cost;
+
+        UnionCursor(PostingCursor[] cursors) {
+            this.heap = cursors;
+            long total = 0;
+            for (PostingCursor cursor : cursors) {
+                total += cursor.cost();
+                if (cursor.next() != EXHAUSTED) {
+                    heap[size++] = cursor;
+                }
+            }
+            this.cost = total;
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        @Override
+        int next() {
+            return advance(doc + 1);
+        }
+
+        @Override
+        int advance(int target) {
+            while (size > 0 && heap[0].current() < target) {
+                if (heap[0].advance(target) == EXHAUSTED) {
+                    heap[0] = heap[--size];
+                }
+                siftDown(0);
+            }
+            return doc = size == 0 ? EXHAUSTED : heap[0].current();
+        }
+
+        @Override
+        int current() {
+            return doc;
+        }
+
+        @Override
+        long cost() {
+            return cost;
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && heap[left].current() < heap[smallest].current()) {
+                    smallest = left;
+                }
+                if (right < size && heap[right].current() < heap[smallest].current()) {
+                    smallest = right;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                PostingCursor swap = heap[i];
+                heap[i] = heap[smallest];
+                heap[smallest] = swap;
+                i = smallest;
+            }
+        }
+    }
+
+    // Character trie over the vocabulary, stored as parallel arrays with first-child/next-sibling links
+    private static final class PrefixTrie {
+        private char[] labels = new char[1024];
+        private int[] firstChild = new int[1024];
+        private int[] nextSibling = new int[1024];
+        private int[] termAt = new int[1024];
+        private int nodeCount = 1;
+
+        PrefixTrie() {
+            firstChild[0] = -1;
+            nextSibling[0] = -1;
+            termAt[0] = -1;
+        }
+
+        void insert(String term, int termId) {
+            int node = 0;
+            for (int i = 0; i < term.length(); i++) {
+                int child = child(node, term.charAt(i));
+                if (child < 0) {
+                    child = newNode(term.charAt(i));
+                    nextSibling[child] = firstChild[node];
+                    firstChild[node] = child;
+                }
+                node = child;
+            }
+            termAt[node] = termId;
+        }
+
+        int[] termsWithPrefix(String prefix) {
+            int node = 0;
+            for (int i = 0; i < prefix.length() && node >= 0; i++) {
+                node = child(node, prefix.charAt(i));
+            }
+            if (node < 0) {
+                return new int[0];
+            }
+            int[] found = new int[8];
+            int count = 0;
+            int[] stack = new int[16];
+            int depth = 0;
+            stack[depth++] = node;
+            while (depth > 0) {
+                int current = stack[--depth];
+                if (termAt[current] >= 0) {
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+                    found[count++] = termAt[current];
+                }
+                for (int child = firstChild[current]; child >= 0; child = nextSibling[child]) {
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth * 2);
+                    }
+                    stack[depth++] = child;
+                }
+            }
+            return Arrays.copyOf(found, count);
+        }
+
+        private int child(int node, char label) {
+            for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+                if (labels[child] == label) {
+                    return child;
+                }
+            }
+            return -1;
+        }
+
+        private int newNode(char label) {
+            if (nodeCount == labels.length) {
+                int grown = nodeCount * 2;
+                labels = Arrays.copyOf(labels, grown);
+                firstChild = Arrays.copyOf(firstChild, grown);
+                nextSibling = Arrays.copyOf(nextSibling, grown);
+                termAt = Arrays.copyOf(termAt, grown);
+            }
+            int node = nodeCount++;
+            labels[node] = label;
+            firstChild[node] = -1;
+            termAt[node] = -1;
+            return node;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+public class ArchiveInvoiceService implements InvoiceGenerator, AutoCloseable {
+    private static final int BUFFER_SIZE = 4096;
+    // Bytes of the invoice template outside the customer text, with room for three 20-digit numbers
+    private static final int TEMPLATE_BYTES = 160;
+
+    private final File directory;
+    private final long segmentSize;
+    private final ByteBufferPool pool;
+
+    private FileChannel segment;
+    private int segmentNumber;
+    private long invoiceCount;
+
+    // Invoices are appended to rolling archive segments as [name length][name][body length][body]
+    public ArchiveInvoiceService(File directory, long segmentSize, int bufferCount) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create invoice directory: " + directory);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.pool = new ByteBufferPool(bufferCount, 2, BUFFER_SIZE);
+        File[] existing = directory.listFiles((dir, name) -> name.endsWith(".arc"));
+        this.segmentNumber = existing == null ? 0 : existing.length;
+        openSegment();
+    }
+
+    public ArchiveInvoiceService(File directory) throws IOException {
+        this(directory, 256L * 1024 * 1024, 16);
+    }
+
+    @Override
+    public void generateInvoice(String fileName) {
+        write(fileName, null, null, 0, 0);
+    }
+
+    @Override
+    public void generateInvoice(OrderRequest request) {
+        long unitCents = Math.round(request.getPrice() * 100);
+        write(request.getInvoiceFile(), request.getCustomerName(), request.getAddress(), unitCents, request.getQuantity());
+    }
+
+    public synchronized long getInvoiceCount() {
+        return invoiceCount;
+    }
+
+    private void write(String fileName, String customerName, String address, long unitCents, int quantity) {
+        // An invoice too large for a pooled buffer gets its own heap buffers instead of overflowing
+        int headerBytes = 8 + maxUtf8Length(fileName);
+        int bodyBytes = TEMPLATE_BYTES + maxUtf8Length(fileName) + maxUtf8Length(customerName) + maxUtf8Length(address);
+        boolean pooled = headerBytes <= BUFFER_SIZE && bodyBytes <= BUFFER_SIZE;
+        ByteBuffer[] buffers;
+        if (pooled) {
+            try {
+                buffers = pool.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for an invoice buffer", e);
+            }
+        } else {
+            buffers = new ByteBuffer[] {ByteBuffer.allocate(headerBytes), ByteBuffer.allocate(bodyBytes)};
+        }
+        ByteBuffer header = buffers[0];
+        ByteBuffer body = buffers[1];
+        try {
+            // The template is rendered straight into the direct buffer, outside the lock
+            putText(body, "INVOICE\nInvoice: ");
+            putText(body, fileName);
+            if (customerName != null) {
+                putText(body, "\nCustomer: ");
+                putText(body, customerName);
+                putText(body, "\nAddress: ");
+                putText(body, address);
+                putText(body, "\nQuantity: ");
+                putNumber(body, quantity);
+                putText(body, "\nUnit price: ");
+                putAmount(body, unitCents);
+                putText(body, "\nTotal: ");
+                putAmount(body, unitCents * quantity);
+            }
+            putText(body, "\n\n");
+            body.flip();
+
+            header.putInt(0);
+            putText(header, fileName);
+            header.putInt(0, header.position() - 4);
+            header.putInt(body.remaining());
+            header.flip();
+
+            append(buffers);
+        } finally {
+            if (pooled) {
+                pool.release(buffers);
+            }
+        }
+    }
+
+    private synchronized void append(ByteBuffer[] parts) {
+        ByteBuffer header = parts[0];
+        ByteBuffer body = parts[1];
+        try {
+            long length = header.remaining() + body.remaining();
+            if (segment.position() > 0 && segment.position() + length > segmentSize) {
+                segment.close();
+                segmentNumber++;
+                openSegment();
+            }
+            while (header.hasRemaining() || body.hasRemaining()) {
+                segment.write(parts);
+            }
+            invoiceCount++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void openSegment() throws IOException {
+        File file = new File(directory, String.format("invoices-%06d.arc", segmentNumber));
+        segment = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // UTF-8 never needs more than three bytes per char; a surrogate pair takes four bytes for two chars
+    private static int maxUtf8Length(String text) {
+        return text == null ? 0 : text.length() * 3;
+    }
+
+    // Encodes text as UTF-8 without creating an intermediate byte array
+    private static void putText(ByteBuffer buffer, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static void putNumber(ByteBuffer buffer, long value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + (value / divisor) % 10));
+        }
+    }
+
+    private static void putAmount(ByteBuffer buffer, long cents) {
+        buffer.put((byte) '$');
+        putNumber(buffer, cents / 100);
+        buffer.put((byte) '.');
+        long fraction = Math.abs(cents % 100);
+        buffer.put((byte) ('0' + fraction / 10));
+        buffer.put((byte) ('0' + fraction % 10));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        segment.force(false);
+        segment.close();
+    }
+}
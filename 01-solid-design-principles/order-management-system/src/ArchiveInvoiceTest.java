@@ -0,0 +1,175 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class ArchiveInvoiceTest {
+    private static final int WRITERS = 16;
+    private static final int BUFFER_SETS = 2;
+    private static final int INVOICES_PER_WRITER = 5_000;
+    private static final int BENCHMARK_INVOICES = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        File directory = new File(System.getProperty("java.io.tmpdir"), "invoice-test-" + System.nanoTime());
+        char[] filler = new char[3_000];
+        Arrays.fill(filler, '\u00e9');
+        String longName = new String(filler);
+
+        // Many more writers than buffer sets: every writer must still get through
+        ArchiveInvoiceService invoices = new ArchiveInvoiceService(directory, 1024 * 1024, BUFFER_SETS);
+        Thread[] writers = new Thread[WRITERS];
+        for (int t = 0; t < WRITERS; t++) {
+            int writer = t;
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < INVOICES_PER_WRITER; i++) {
+                    String file = "order_" + writer + "_" + i + ".pdf";
+                    if (i % 500 == 0) {
+                        invoices.generateInvoice(new OrderRequest(9.99, 3, longName, longName, file, "x@example.com"));
+                    } else {
+                        invoices.generateInvoice(file);
+                    }
+                }
+            });
+            writers[t].start();
+        }
+        long deadline = System.currentTimeMillis() + 60_000;
+        boolean finished = true;
+        for (Thread writer : writers) {
+            writer.join(Math.max(1, deadline - System.currentTimeMillis()));
+            finished &= !writer.isAlive();
+        }
+        check(finished, WRITERS + " writers sharing " + BUFFER_SETS + " buffer sets all finished");
+        invoices.close();
+
+        int total = WRITERS * INVOICES_PER_WRITER;
+        check(invoices.getInvoiceCount() == total, "All " + total + " invoices written");
+
+        Set<String> names = new HashSet<>();
+        boolean longBodyFound = false;
+        File[] segments = directory.listFiles((dir, name) -> name.endsWith(".arc"));
+        Arrays.sort(segments);
+        for (File segment : segments) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment)))) {
+                while (in.available() > 0) {
+                    String name = readText(in, in.readInt());
+                    String body = readText(in, in.readInt());
+                    names.add(name);
+                    longBodyFound |= body.contains(longName) && body.contains("Total: $29.97");
+                }
+            }
+            segment.delete();
+        }
+        directory.delete();
+        check(segments.length > 1, "Archive rolled over into " + segments.length + " segments");
+        check(names.size() == total, "Every invoice read back once: " + names.size());
+        check(longBodyFound, "Invoice larger than a pooled buffer written in full");
+
+        benchmark(new File(System.getProperty("java.io.tmpdir"), "invoice-bench-" + System.nanoTime()));
+    }
+
+    // Orders placed through OrderManager, with templated archive invoices against the old shape of
+    // one invoice per file rendered through a String
+    private static void benchmark(File directory) throws IOException {
+        String[] files = new String[BENCHMARK_INVOICES];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = "order_" + i + ".pdf";
+        }
+        try (ArchiveInvoiceService invoices = new ArchiveInvoiceService(new File(directory, "archive"))) {
+            OrderManager manager = new OrderManager(LoadStubs.order(0), invoices, LoadStubs.notifier(0));
+            measure("Archive segments", manager, files);
+            measure("Archive segments", manager, files);
+            check(invoices.getInvoiceCount() == 2L * files.length, "OrderManager invoices go through the archive");
+        }
+        File archive = new File(directory, "archive").listFiles()[0];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(archive)))) {
+            readText(in, in.readInt());
+            check(readText(in, in.readInt()).contains("Customer: John Doe\nAddress: 123 Main St"),
+                    "OrderManager invoices carry the customer and totals");
+        }
+
+        File perFile = new File(directory, "files");
+        perFile.mkdirs();
+        OrderManager manager = new OrderManager(LoadStubs.order(0), new FilePerInvoice(perFile), LoadStubs.notifier(0));
+        measure("File per invoice", manager, files);
+        measure("File per invoice", manager, files);
+        delete(directory);
+    }
+
+    private static void measure(String label, OrderManager manager, String[] files) {
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        for (String file : files) {
+            manager.processOrder(9.99, 3, "John Doe", "123 Main St", file, "johndoe@example.com");
+        }
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        allocated = allocatedBytes() - allocated;
+        System.out.println(label + ": " + files.length * 1_000_000_000L / elapsed + " invoices/s, "
+                + (allocated < 0 ? "n/a" : String.valueOf(allocated / files.length)) + " bytes allocated per invoice");
+    }
+
+    // Bytes allocated by this thread so far, or a negative number where the JVM does not report it
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return Long.MIN_VALUE / 2;
+    }
+
+    private static final class FilePerInvoice implements InvoiceGenerator {
+        private final File directory;
+
+        FilePerInvoice(File directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        public void generateInvoice(String fileName) {
+            generateInvoice(new OrderRequest(0, 0, "", "", fileName, ""));
+        }
+
+        @Override
+        public void generateInvoice(OrderRequest request) {
+            String invoice = String.format("INVOICE%nInvoice: %s%nCustomer: %s%nAddress: %s%nQuantity: %d%nUnit price: $%.2f%nTotal: $%.2f%n%n",
+                    request.getInvoiceFile(), request.getCustomerName(), request.getAddress(), request.getQuantity(),
+                    request.getPrice(), request.getPrice() * request.getQuantity());
+            try {
+                Files.write(new File(directory, request.getInvoiceFile()).toPath(), invoice.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static String readText(DataInputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
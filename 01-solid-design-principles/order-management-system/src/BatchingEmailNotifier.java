@@ -0,0 +1,159 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class BatchingEmailNotifier implements EmailNotifier, AutoCloseable {
+    private static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+    private final MailTransport transport;
+    private final int maxBatch;
+    private final int maxAttempts;
+    // Receives emails that failed maxAttempts times, so a transport that never recovers cannot grow the queue
+    private final MailTransport deadLetters;
+    private final ScheduledExecutorService flusher;
+    // Notifications waiting for the next batch, coalesced per address in arrival order
+    private Map<String, Integer> pending = new LinkedHashMap<>();
+    // Failed sends per address still pending; an address is dead-lettered once it reaches maxAttempts
+    private final Map<String, Integer> attempts = new HashMap<>();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+
+    public BatchingEmailNotifier(MailTransport transport, int maxBatch, long windowMillis, int maxAttempts, MailTransport deadLetters) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is needed");
+        }
+        this.transport = transport;
+        this.maxBatch = maxBatch;
+        this.maxAttempts = maxAttempts;
+        this.deadLetters = deadLetters;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "email-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public BatchingEmailNotifier(MailTransport transport, int maxBatch, long windowMillis) {
+        this(transport, maxBatch, windowMillis, DEFAULT_MAX_ATTEMPTS, BatchingEmailNotifier::logUndelivered);
+    }
+
+    @Override
+    public void sendEmailNotification(String email) {
+        boolean full;
+        synchronized (this) {
+            pending.merge(email, 1, Integer::sum);
+            full = pending.size() >= maxBatch;
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        Map<String, Integer> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+        List<EmailMessage> messages = new ArrayList<>(batch.size());
+        for (Map.Entry<String, Integer> entry : batch.entrySet()) {
+            messages.add(new EmailMessage(entry.getKey(), entry.getValue()));
+        }
+        // A throwing transport must not escape: the scheduler would cancel every later window
+        try {
+            transport.sendBatch(messages);
+        } catch (RuntimeException e) {
+            failedBatches.increment();
+            System.err.println("Email batch of " + messages.size() + " failed, retrying with the next one: " + e.getMessage());
+            List<EmailMessage> expired = requeue(batch);
+            if (!expired.isEmpty()) {
+                deadLetter(expired);
+            }
+            return;
+        }
+        synchronized (this) {
+            if (!attempts.isEmpty()) {
+                attempts.keySet().removeAll(batch.keySet());
+            }
+        }
+    }
+
+    // The failed batch goes back ahead of anything that arrived since, so each address keeps its order.
+    // Addresses that have now failed maxAttempts times are taken out and returned for dead-lettering
+    private synchronized List<EmailMessage> requeue(Map<String, Integer> batch) {
+        List<EmailMessage> expired = Collections.emptyList();
+        Iterator<Map.Entry<String, Integer>> entries = batch.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, Integer> entry = entries.next();
+            if (attempts.merge(entry.getKey(), 1, Integer::sum) >= maxAttempts) {
+                attempts.remove(entry.getKey());
+                if (expired.isEmpty()) {
+                    expired = new ArrayList<>();
+                }
+                expired.add(new EmailMessage(entry.getKey(), entry.getValue()));
+                entries.remove();
+            }
+        }
+        for (Map.Entry<String, Integer> entry : pending.entrySet()) {
+            batch.merge(entry.getKey(), entry.getValue(), Integer::sum);
+        }
+        pending = batch;
+        return expired;
+    }
+
+    private void deadLetter(List<EmailMessage> expired) {
+        for (EmailMessage message : expired) {
+            deadLettered.add(message.getNotificationCount());
+        }
+        try {
+            deadLetters.sendBatch(expired);
+        } catch (RuntimeException e) {
+            System.err.println(expired.size() + " undeliverable emails were lost: " + e.getMessage());
+        }
+    }
+
+    private static void logUndelivered(List<EmailMessage> messages) {
+        System.err.println("Gave up on " + messages.size() + " emails after " + DEFAULT_MAX_ATTEMPTS + " failed attempts");
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getFailedBatches() {
+        return failedBatches.sum();
+    }
+
+    // Notifications given up on after maxAttempts failed sends
+    public long getDeadLettered() {
+        return deadLettered.sum();
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            // Lets a scheduled flush that is already running finish first
+            flusher.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        int undelivered = getPendingCount();
+        if (undelivered > 0) {
+            System.err.println(undelivered + " email notifications could not be delivered before close");
+        }
+    }
+}
@@ -0,0 +1,32 @@
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+public class ByteBufferPool {
+    private final BlockingQueue<ByteBuffer[]> sets;
+
+    // Buffers are handed out in fixed sets, so a caller needing several never holds some while waiting for the rest
+    public ByteBufferPool(int setCount, int buffersPerSet, int bufferSize) {
+        this.sets = new ArrayBlockingQueue<>(setCount);
+        for (int i = 0; i < setCount; i++) {
+            ByteBuffer[] set = new ByteBuffer[buffersPerSet];
+            for (int j = 0; j < buffersPerSet; j++) {
+                set[j] = ByteBuffer.allocateDirect(bufferSize);
+            }
+            sets.add(set);
+        }
+    }
+
+    // Waits for a free set, so the number of direct buffers in use stays fixed
+    public ByteBuffer[] acquire() throws InterruptedException {
+        ByteBuffer[] set = sets.take();
+        for (ByteBuffer buffer : set) {
+            buffer.clear();
+        }
+        return set;
+    }
+
+    public void release(ByteBuffer[] set) {
+        sets.add(set);
+    }
+}
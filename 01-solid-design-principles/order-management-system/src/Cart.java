@@ -0,0 +1,79 @@
+import java.util.Arrays;
+
+public class Cart {
+    private static final int BASIS_POINTS = 10_000;
+
+    private long[] unitPrices;
+    private int[] quantities;
+    private int size;
+    private int taxRateBasisPoints;
+
+    public Cart(int expectedLines) {
+        this.unitPrices = new long[Math.max(1, expectedLines)];
+        this.quantities = new int[Math.max(1, expectedLines)];
+    }
+
+    public Cart() {
+        this(8);
+    }
+
+    // Unit price in minor units (centavos)
+    public Cart addLine(long unitPrice, int quantity) {
+        if (unitPrice < 0 || quantity < 0) {
+            throw new IllegalArgumentException("Price and quantity must not be negative");
+        }
+        if (size == unitPrices.length) {
+            unitPrices = Arrays.copyOf(unitPrices, size * 2);
+            quantities = Arrays.copyOf(quantities, size * 2);
+        }
+        unitPrices[size] = unitPrice;
+        quantities[size] = quantity;
+        size++;
+        return this;
+    }
+
+    // Tax rate in basis points, e.g. 1200 for 12% VAT
+    public Cart setTaxRate(int basisPoints) {
+        if (basisPoints < 0) {
+            throw new IllegalArgumentException("Tax rate must not be negative: " + basisPoints);
+        }
+        this.taxRateBasisPoints = basisPoints;
+        return this;
+    }
+
+    public int getLineCount() {
+        return size;
+    }
+
+    public long getSubtotal() {
+        long subtotal = 0;
+        for (int i = 0; i < size; i++) {
+            subtotal = Math.addExact(subtotal, Math.multiplyExact(unitPrices[i], (long) quantities[i]));
+        }
+        return subtotal;
+    }
+
+    // Tax on the whole subtotal, rounded half up to the nearest minor unit
+    public long getTax() {
+        long scaled = Math.multiplyExact(getSubtotal(), (long) taxRateBasisPoints);
+        return (scaled + BASIS_POINTS / 2) / BASIS_POINTS;
+    }
+
+    public long getTotal() {
+        return Math.addExact(getSubtotal(), getTax());
+    }
+
+    // Empties the cart so it can be reused for the next order without reallocating
+    public void clear() {
+        size = 0;
+        taxRateBasisPoints = 0;
+    }
+
+    public static long toMinorUnits(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    public static String format(long minorUnits) {
+        return (minorUnits < 0 ? "-$" : "$") + Math.abs(minorUnits / 100) + "." + String.format("%02d", Math.abs(minorUnits % 100));
+    }
+}
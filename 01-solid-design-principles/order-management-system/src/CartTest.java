@@ -0,0 +1,132 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class CartTest {
+    private static final int CARTS = 1_000_000;
+    private static final int BENCHMARK_CARTS = 200_000;
+    private static final int BENCHMARK_ROUNDS = 5;
+
+    public static void main(String[] args) throws InterruptedException {
+        Random random = new Random(42);
+        Cart cart = new Cart();
+        int mismatches = 0;
+
+        // Every cart total must match the same calculation done with BigDecimal
+        for (int c = 0; c < CARTS; c++) {
+            cart.clear();
+            int taxRate = random.nextInt(2_500);
+            cart.setTaxRate(taxRate);
+            BigDecimal subtotal = BigDecimal.ZERO;
+            int lines = 1 + random.nextInt(20);
+            for (int i = 0; i < lines; i++) {
+                long unitPrice = random.nextInt(10_000_000);
+                int quantity = 1 + random.nextInt(100);
+                cart.addLine(unitPrice, quantity);
+                subtotal = subtotal.add(BigDecimal.valueOf(unitPrice, 2).multiply(BigDecimal.valueOf(quantity)));
+            }
+            BigDecimal tax = subtotal.multiply(BigDecimal.valueOf(taxRate, 4)).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal expected = subtotal.add(tax);
+            if (expected.movePointRight(2).longValueExact() != cart.getTotal()) {
+                mismatches++;
+            }
+        }
+        check(mismatches == 0, CARTS + " cart totals match BigDecimal");
+
+        cart.clear();
+        cart.addLine(Cart.toMinorUnits(10.0), 2).setTaxRate(1200);
+        check(cart.getTotal() == 2240, "10.00 x 2 with 12% tax is " + Cart.format(cart.getTotal()));
+        check(new OrderProcessor().calculateTotal(cart) == 2240, "OrderProcessor returns the cart total");
+
+        // Carts go through the same Order, invoice and email steps as price and quantity
+        List<String> invoices = new ArrayList<>();
+        List<String> emails = new ArrayList<>();
+        OrderManager manager = new OrderManager(LoadStubs.order(0), invoices::add, emails::add, new IdempotencyIndex(16, 60_000));
+        check(manager.processOrder(cart, "Customer", "Address", "cart.pdf", "cart@example.com") == 2240
+                && invoices.equals(Arrays.asList("cart.pdf")) && emails.equals(Arrays.asList("cart@example.com")),
+                "OrderManager totals, invoices and emails a cart");
+        check(manager.processOrder("cart-1", cart, "Customer", "Address", "retry.pdf", "retry@example.com")
+                && !manager.processOrder("cart-1", cart, "Customer", "Address", "retry.pdf", "retry@example.com")
+                && invoices.size() == 2, "A retried cart order is processed once");
+
+        List<String> pipelineInvoices = Collections.synchronizedList(new ArrayList<>());
+        long pipelineTotal;
+        try (OrderPipeline pipeline = new OrderPipeline(LoadStubs.order(0), pipelineInvoices::add, email -> { }, 4, 1, 1)) {
+            pipelineTotal = pipeline.processOrder(cart, "Customer", "Address", "piped.pdf", "piped@example.com");
+        }
+        check(pipelineTotal == 2240 && pipelineInvoices.equals(Arrays.asList("piped.pdf")), "OrderPipeline totals and invoices a cart");
+
+        boolean rejected = false;
+        try {
+            new Cart().setTaxRate(-1);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        check(rejected, "Negative tax rate is rejected");
+
+        benchmark(random);
+    }
+
+    // The same carts totalled in long minor units and with BigDecimal, best of a few rounds each
+    private static void benchmark(Random random) {
+        int[] lineCounts = new int[BENCHMARK_CARTS];
+        int[] taxRates = new int[BENCHMARK_CARTS];
+        int lines = 0;
+        for (int c = 0; c < BENCHMARK_CARTS; c++) {
+            lineCounts[c] = 1 + random.nextInt(20);
+            taxRates[c] = random.nextInt(2_500);
+            lines += lineCounts[c];
+        }
+        long[] unitPrices = new long[lines];
+        int[] quantities = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            unitPrices[i] = random.nextInt(10_000_000);
+            quantities[i] = 1 + random.nextInt(100);
+        }
+
+        Cart cart = new Cart(20);
+        long cartNanos = Long.MAX_VALUE;
+        long bigDecimalNanos = Long.MAX_VALUE;
+        long cartSum = 0;
+        long bigDecimalSum = 0;
+        for (int round = 0; round < BENCHMARK_ROUNDS; round++) {
+            cartSum = 0;
+            long start = System.nanoTime();
+            for (int c = 0, line = 0; c < BENCHMARK_CARTS; c++) {
+                cart.clear();
+                cart.setTaxRate(taxRates[c]);
+                for (int end = line + lineCounts[c]; line < end; line++) {
+                    cart.addLine(unitPrices[line], quantities[line]);
+                }
+                cartSum += cart.getTotal();
+            }
+            cartNanos = Math.min(cartNanos, System.nanoTime() - start);
+
+            bigDecimalSum = 0;
+            start = System.nanoTime();
+            for (int c = 0, line = 0; c < BENCHMARK_CARTS; c++) {
+                BigDecimal subtotal = BigDecimal.ZERO;
+                for (int end = line + lineCounts[c]; line < end; line++) {
+                    subtotal = subtotal.add(BigDecimal.valueOf(unitPrices[line], 2).multiply(BigDecimal.valueOf(quantities[line])));
+                }
+                BigDecimal tax = subtotal.multiply(BigDecimal.valueOf(taxRates[c], 4)).setScale(2, RoundingMode.HALF_UP);
+                bigDecimalSum += subtotal.add(tax).movePointRight(2).longValueExact();
+            }
+            bigDecimalNanos = Math.min(bigDecimalNanos, System.nanoTime() - start);
+        }
+        check(cartSum == bigDecimalSum, "Benchmark totals agree");
+        System.out.printf("Cart (long minor units): %.0f ns/cart, BigDecimal: %.0f ns/cart, %d lines/cart on average%n",
+                (double) cartNanos / BENCHMARK_CARTS, (double) bigDecimalNanos / BENCHMARK_CARTS, lines / BENCHMARK_CARTS);
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
@@ -0,0 +1,131 @@
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EmailBatchingTest {
+    private static final int BENCHMARK_NOTIFICATIONS = 100_000;
+    private static final int BENCHMARK_ADDRESSES = 20_000;
+    // Simulated SMTP cost: one round trip per batch plus a little per message
+    private static final long BATCH_NANOS = 20_000;
+    private static final long MESSAGE_NANOS = 200;
+    public static void main(String[] args) throws InterruptedException {
+        // Notifications within one window go out together, with repeats merged per address
+        InMemoryMailTransport transport = new InMemoryMailTransport();
+        try (BatchingEmailNotifier notifier = new BatchingEmailNotifier(transport, 1_000, 200)) {
+            for (int i = 0; i < 5; i++) {
+                notifier.sendEmailNotification("john@example.com");
+            }
+            notifier.sendEmailNotification("jane@example.com");
+            check(waitFor(() -> transport.getBatchCount() == 1), "Window elapsed and sent one batch");
+            List<EmailMessage> delivered = transport.getDelivered();
+            check(delivered.size() == 2, "Repeats for one address were merged into one email");
+            check(delivered.get(0).getRecipient().equals("john@example.com") && delivered.get(0).getNotificationCount() == 5,
+                    "Merged email counts all 5 notifications");
+            check(delivered.get(1).getRecipient().equals("jane@example.com"), "Emails keep arrival order");
+
+            notifier.sendEmailNotification("later@example.com");
+            check(waitFor(() -> transport.getBatchCount() == 2), "The next window sent the next batch");
+        }
+
+        // A full batch is sent straight away; what is left goes out on close
+        InMemoryMailTransport full = new InMemoryMailTransport();
+        BatchingEmailNotifier batching = new BatchingEmailNotifier(full, 3, 60_000);
+        batching.sendEmailNotification("a@example.com");
+        batching.sendEmailNotification("b@example.com");
+        batching.sendEmailNotification("c@example.com");
+        check(full.getBatchCount() == 1 && full.getDelivered().size() == 3, "A full batch was sent without waiting for the window");
+        batching.sendEmailNotification("d@example.com");
+        batching.close();
+        check(full.getBatchCount() == 2 && full.getDelivered().get(3).getRecipient().equals("d@example.com"),
+                "close() flushed the last partial batch");
+
+        // A failing transport must not stop later windows, and the failed notifications are retried
+        InMemoryMailTransport recovering = new InMemoryMailTransport();
+        AtomicInteger attempts = new AtomicInteger();
+        MailTransport flaky = messages -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new IllegalStateException("SMTP server unavailable");
+            }
+            recovering.sendBatch(messages);
+        };
+        try (BatchingEmailNotifier notifier = new BatchingEmailNotifier(flaky, 1_000, 20)) {
+            notifier.sendEmailNotification("john@example.com");
+            check(waitFor(() -> attempts.get() >= 2), "Transport failed twice");
+            notifier.sendEmailNotification("john@example.com");
+            notifier.sendEmailNotification("jane@example.com");
+            check(waitFor(() -> recovering.getBatchCount() > 0), "Flushing carried on after the transport failed");
+            check(waitFor(() -> notifier.getPendingCount() == 0), "Nothing is left pending");
+            int johns = 0;
+            for (EmailMessage message : recovering.getDelivered()) {
+                if (message.getRecipient().equals("john@example.com")) {
+                    johns += message.getNotificationCount();
+                }
+            }
+            check(johns == 2 && notifier.getFailedBatches() == 2, "Failed notifications were retried, none lost");
+        }
+
+        // A transport that never recovers: each address is retried a bounded number of times, then dead-lettered
+        InMemoryMailTransport deadLetters = new InMemoryMailTransport();
+        MailTransport down = messages -> {
+            throw new IllegalStateException("SMTP server unavailable");
+        };
+        try (BatchingEmailNotifier notifier = new BatchingEmailNotifier(down, 1_000, 60_000, 3, deadLetters)) {
+            for (int i = 0; i < 100; i++) {
+                notifier.sendEmailNotification("user" + (i % 10) + "@example.com");
+            }
+            for (int attempt = 0; attempt < 3; attempt++) {
+                notifier.flush();
+            }
+            check(notifier.getPendingCount() == 0, "Pending emails drop to zero while the transport is down");
+            check(notifier.getDeadLettered() == 100 && deadLetters.getDelivered().size() == 10 && notifier.getFailedBatches() == 3,
+                    "Every notification dead-lettered after 3 failed attempts");
+        }
+
+        benchmark();
+    }
+
+    // Notifications per second through a transport with a fixed cost per batch, for growing batch sizes
+    private static void benchmark() {
+        String[] addresses = new String[BENCHMARK_ADDRESSES];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = "customer" + i + "@example.com";
+        }
+        for (int batchSize = 1; batchSize <= 1_000; batchSize *= 10) {
+            InMemoryMailTransport delivered = new InMemoryMailTransport();
+            MailTransport smtp = messages -> {
+                LoadStubs.spin(BATCH_NANOS + MESSAGE_NANOS * messages.size());
+                delivered.sendBatch(messages);
+            };
+            long start = System.nanoTime();
+            try (BatchingEmailNotifier notifier = new BatchingEmailNotifier(smtp, batchSize, 60_000)) {
+                for (int i = 0; i < BENCHMARK_NOTIFICATIONS; i++) {
+                    notifier.sendEmailNotification(addresses[i % addresses.length]);
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("Batch size %4d: %,9.0f notifications/s, %6d emails in %5d batches%n", batchSize,
+                    BENCHMARK_NOTIFICATIONS * 1e9 / elapsed, delivered.getDelivered().size(), delivered.getBatchCount());
+        }
+    }
+
+    private static boolean waitFor(Condition condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.holds()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    private interface Condition {
+        boolean holds();
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
@@ -0,0 +1,18 @@
+public class EmailMessage {
+    private final String recipient;
+    private final int notificationCount;
+
+    public EmailMessage(String recipient, int notificationCount) {
+        this.recipient = recipient;
+        this.notificationCount = notificationCount;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    // How many order notifications were coalesced into this one email
+    public int getNotificationCount() {
+        return notificationCount;
+    }
+}
@@ -0,0 +1,191 @@
+import java.nio.ByteBuffer;
+
+public class IdempotencyIndex {
+    // Each slot is a 64-bit key fingerprint followed by its expiry time; a zero key marks an empty slot
+    private static final int SLOT_BYTES = 16;
+    private static final int SEGMENT_COUNT = 64;
+    private static final int MAX_SEGMENT_SLOTS = 1 << 26;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+    private final long ttlMillis;
+
+    public IdempotencyIndex(int expectedKeys, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        int slotsPerSegment = Integer.highestOneBit(Math.max(16, expectedKeys / SEGMENT_COUNT * 2 - 1)) << 1;
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(Math.min(slotsPerSegment, MAX_SEGMENT_SLOTS));
+        }
+    }
+
+    // Returns true the first time an ID is seen within the TTL, false for a duplicate
+    public boolean register(String clientOrderId, long nowMillis) {
+        long key = fingerprint(clientOrderId);
+        return segmentFor(key).register(key, nowMillis, nowMillis + ttlMillis);
+    }
+
+    public boolean register(String clientOrderId) {
+        return register(clientOrderId, System.currentTimeMillis());
+    }
+
+    public boolean contains(String clientOrderId, long nowMillis) {
+        long key = fingerprint(clientOrderId);
+        return segmentFor(key).contains(key, nowMillis);
+    }
+
+    // Forgets an ID so a retry is processed again, e.g. after the first attempt failed
+    public void release(String clientOrderId) {
+        long key = fingerprint(clientOrderId);
+        segmentFor(key).release(key);
+    }
+
+    public long size(long nowMillis) {
+        long live = 0;
+        for (Segment segment : segments) {
+            live += segment.countLive(nowMillis);
+        }
+        return live;
+    }
+
+    private Segment segmentFor(long key) {
+        return segments[(int) (key >>> 58)];
+    }
+
+    // FNV-1a over the characters, finished with a 64-bit mixer so both the high and low bits are usable
+    static long fingerprint(String id) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h = (h ^ id.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    private static final class Segment {
+        private ByteBuffer table;
+        private int mask;
+        private int used;
+
+        Segment(int slots) {
+            allocate(slots);
+        }
+
+        private void allocate(int slots) {
+            table = ByteBuffer.allocateDirect(slots * SLOT_BYTES);
+            mask = slots - 1;
+            used = 0;
+        }
+
+        synchronized boolean register(long key, long now, long expiresAt) {
+            if (used >= threshold()) {
+                rebuild(now);
+            }
+            int reusable = -1;
+            for (int slot = (int) key & mask; ; slot = (slot + 1) & mask) {
+                int offset = slot * SLOT_BYTES;
+                long stored = table.getLong(offset);
+                if (stored == 0) {
+                    if (reusable < 0) {
+                        reusable = offset;
+                        used++;
+                    }
+                    break;
+                }
+                if (stored == key) {
+                    if (table.getLong(offset + 8) > now) {
+                        return false;
+                    }
+                    table.putLong(offset + 8, expiresAt);
+                    return true;
+                }
+                if (reusable < 0 && table.getLong(offset + 8) <= now) {
+                    reusable = offset;
+                }
+            }
+            table.putLong(reusable, key);
+            table.putLong(reusable + 8, expiresAt);
+            return true;
+        }
+
+        private int threshold() {
+            return (mask + 1) / 4 * 3;
+        }
+
+        synchronized boolean contains(long key, long now) {
+            for (int slot = (int) key & mask; ; slot = (slot + 1) & mask) {
+                int offset = slot * SLOT_BYTES;
+                long stored = table.getLong(offset);
+                if (stored == 0) {
+                    return false;
+                }
+                if (stored == key) {
+                    return table.getLong(offset + 8) > now;
+                }
+            }
+        }
+
+        // Leaves the key in place as an already-expired entry so probe chains stay intact
+        synchronized void release(long key) {
+            for (int slot = (int) key & mask; ; slot = (slot + 1) & mask) {
+                int offset = slot * SLOT_BYTES;
+                long stored = table.getLong(offset);
+                if (stored == 0) {
+                    return;
+                }
+                if (stored == key) {
+                    table.putLong(offset + 8, 0);
+                    return;
+                }
+            }
+        }
+
+        synchronized long countLive(long now) {
+            long live = 0;
+            for (int offset = 0; offset < table.capacity(); offset += SLOT_BYTES) {
+                if (table.getLong(offset) != 0 && table.getLong(offset + 8) > now) {
+                    live++;
+                }
+            }
+            return live;
+        }
+
+        // Drops expired entries, growing only if the live keys alone would still fill the table
+        private void rebuild(long now) {
+            ByteBuffer old = table;
+            int live = 0;
+            for (int offset = 0; offset < old.capacity(); offset += SLOT_BYTES) {
+                if (old.getLong(offset) != 0 && old.getLong(offset + 8) > now) {
+                    live++;
+                }
+            }
+            int slots = mask + 1;
+            if (live > slots / 2 && slots < MAX_SEGMENT_SLOTS) {
+                slots <<= 1;
+            }
+            if (live >= slots / 4 * 3) {
+                throw new IllegalStateException("Idempotency index is full: " + live + " live keys in a segment");
+            }
+            allocate(slots);
+            for (int offset = 0; offset < old.capacity(); offset += SLOT_BYTES) {
+                long key = old.getLong(offset);
+                long expiresAt = old.getLong(offset + 8);
+                if (key != 0 && expiresAt > now) {
+                    insert(key, expiresAt);
+                }
+            }
+        }
+
+        private void insert(long key, long expiresAt) {
+            int slot = (int) key & mask;
+            while (table.getLong(slot * SLOT_BYTES) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table.putLong(slot * SLOT_BYTES, key);
+            table.putLong(slot * SLOT_BYTES + 8, expiresAt);
+            used++;
+        }
+    }
+}
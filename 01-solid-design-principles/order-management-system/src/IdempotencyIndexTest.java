@@ -0,0 +1,58 @@
+public class IdempotencyIndexTest {
+    private static final long TTL = 60_000;
+
+    public static void main(String[] args) {
+        IdempotencyIndex index = new IdempotencyIndex(1_000, TTL);
+        check(index.register("order-1", 0), "first submission is accepted");
+        check(!index.register("order-1", 1_000), "retry within the TTL is a duplicate");
+        check(index.register("order-1", TTL), "same ID is accepted again after the TTL");
+        index.release("order-1");
+        check(index.register("order-1", TTL + 1), "released ID is accepted again");
+
+        int[] invoices = new int[1];
+        int[] emails = new int[1];
+        OrderManager manager = new OrderManager(
+                new OrderProcessor(),
+                invoiceFile -> invoices[0]++,
+                email -> emails[0]++,
+                new IdempotencyIndex(1_000, TTL));
+        boolean first = manager.processOrder("client-42", 10.0, 2, "John Doe", "123 Main St", "order_123.pdf", "johndoe@example.com");
+        boolean retry = manager.processOrder("client-42", 10.0, 2, "John Doe", "123 Main St", "order_123.pdf", "johndoe@example.com");
+        check(first && !retry && invoices[0] == 1 && emails[0] == 1, "duplicate order skips invoice and email");
+
+        // Expired keys are reclaimed, so a steady stream of new IDs never outgrows the table
+        IdempotencyIndex small = new IdempotencyIndex(64 * 16, 10);
+        for (int i = 0; i < 1_000_000; i++) {
+            small.register("stream-" + i, i / 100);
+        }
+        check(small.size(1_000_000 / 100) <= 1_000, "expired keys are evicted, live keys: " + small.size(1_000_000 / 100));
+
+        int keys = 5_000_000;
+        IdempotencyIndex large = new IdempotencyIndex(keys, TTL);
+        String[] ids = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            ids[i] = "client-order-" + i;
+        }
+        long start = System.nanoTime();
+        boolean allNew = true;
+        for (int i = 0; i < keys; i++) {
+            allNew &= large.register(ids[i], 0);
+        }
+        long insertNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        boolean allDuplicates = true;
+        for (int i = 0; i < keys; i++) {
+            allDuplicates &= !large.register(ids[i], 1);
+        }
+        long lookupNanos = System.nanoTime() - start;
+        check(allNew && allDuplicates && large.size(1) == keys, keys + " keys registered and found again");
+        System.out.println("Insert: " + insertNanos / keys + " ns/key, duplicate check: " + lookupNanos / keys + " ns/key");
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
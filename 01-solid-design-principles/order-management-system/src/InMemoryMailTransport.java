@@ -0,0 +1,22 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Local stand-in for an SMTP server: keeps every delivered message in memory
+public class InMemoryMailTransport implements MailTransport {
+    private final List<EmailMessage> delivered = new ArrayList<>();
+    private int batches;
+
+    @Override
+    public synchronized void sendBatch(List<EmailMessage> messages) {
+        delivered.addAll(messages);
+        batches++;
+    }
+
+    public synchronized List<EmailMessage> getDelivered() {
+        return new ArrayList<>(delivered);
+    }
+
+    public synchronized int getBatchCount() {
+        return batches;
+    }
+}
@@ -1,3 +1,8 @@
 public interface InvoiceGenerator {
     void generateInvoice(String fileName);
+
+    // Generators that render the customer and totals override this; others only need the file name
+    default void generateInvoice(OrderRequest request) {
+        generateInvoice(request.getInvoiceFile());
+    }
 }
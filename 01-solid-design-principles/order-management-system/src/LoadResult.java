@@ -0,0 +1,90 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+public class LoadResult {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99, 100};
+
+    private final double targetRate;
+    private final int threads;
+    private final long durationNanos;
+    private final long failures;
+    private final LatencyHistogram responseTime;
+    private final LatencyHistogram serviceTime;
+
+    public LoadResult(double targetRate, int threads, long durationNanos, long failures,
+                      LatencyHistogram responseTime, LatencyHistogram serviceTime) {
+        this.targetRate = targetRate;
+        this.threads = threads;
+        this.durationNanos = durationNanos;
+        this.failures = failures;
+        this.responseTime = responseTime;
+        this.serviceTime = serviceTime;
+    }
+
+    public double getTargetRate() {
+        return targetRate;
+    }
+
+    public double getAchievedRate() {
+        return durationNanos == 0 ? 0 : responseTime.getCount() * 1e9 / durationNanos;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    // Measured from when each order was scheduled to start, so queueing behind a slow order is included
+    public LatencyHistogram getResponseTime() {
+        return responseTime;
+    }
+
+    // Measured from when each order actually started
+    public LatencyHistogram getServiceTime() {
+        return serviceTime;
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append(String.format(Locale.ROOT, "  \"targetRate\": %.1f,%n", targetRate));
+        json.append(String.format(Locale.ROOT, "  \"achievedRate\": %.1f,%n", getAchievedRate()));
+        json.append("  \"threads\": ").append(threads).append(",\n");
+        json.append("  \"durationNanos\": ").append(durationNanos).append(",\n");
+        json.append("  \"orders\": ").append(responseTime.getCount()).append(",\n");
+        json.append("  \"failures\": ").append(failures).append(",\n");
+        appendHistogram(json, "responseTimeNanos", responseTime);
+        json.append(",\n");
+        appendHistogram(json, "serviceTimeNanos", serviceTime);
+        json.append("\n}\n");
+        return json.toString();
+    }
+
+    private static void appendHistogram(StringBuilder json, String name, LatencyHistogram histogram) {
+        json.append("  \"").append(name).append("\": {");
+        json.append("\"min\": ").append(histogram.getMin());
+        json.append(", \"mean\": ").append(histogram.getMean());
+        for (double percentile : PERCENTILES) {
+            json.append(", \"p").append(format(percentile)).append("\": ").append(histogram.percentile(percentile));
+        }
+        json.append("}");
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+
+    public void writeJson(Path file) throws IOException {
+        Files.write(file, toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d orders at %.0f/s (target %.0f/s), %d failed, response p50=%dus p99=%dus max=%dus, service p50=%dus p99=%dus max=%dus",
+                responseTime.getCount(), getAchievedRate(), targetRate, failures,
+                responseTime.percentile(50) / 1000, responseTime.percentile(99) / 1000, responseTime.getMax() / 1000,
+                serviceTime.percentile(50) / 1000, serviceTime.percentile(99) / 1000, serviceTime.getMax() / 1000);
+    }
+}
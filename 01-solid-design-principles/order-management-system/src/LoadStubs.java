@@ -0,0 +1,44 @@
+public class LoadStubs {
+    private LoadStubs() {
+    }
+
+    // Stubs that do no I/O and simply spin for a fixed service time, so the harness measures the orchestration
+    public static Order order(long serviceNanos) {
+        return new Order() {
+            @Override
+            public void calculateTotal(double price, int quantity) {
+                spin(serviceNanos / 2);
+            }
+
+            @Override
+            public long calculateTotal(Cart cart) {
+                spin(serviceNanos / 2);
+                return cart.getTotal();
+            }
+
+            @Override
+            public void placeOrder(String customerName, String address) {
+                spin(serviceNanos - serviceNanos / 2);
+            }
+        };
+    }
+
+    public static InvoiceGenerator invoices(long serviceNanos) {
+        return fileName -> spin(serviceNanos);
+    }
+
+    public static EmailNotifier notifier(long serviceNanos) {
+        return email -> spin(serviceNanos);
+    }
+
+    // Busy-waits rather than sleeping, because sleeps far overshoot microsecond service times
+    static void spin(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + nanos;
+        while (System.nanoTime() < deadline) {
+            // spin
+        }
+    }
+}
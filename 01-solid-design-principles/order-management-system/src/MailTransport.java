@@ -0,0 +1,5 @@
+import java.util.List;
+
+public interface MailTransport {
+    void sendBatch(List<EmailMessage> messages);
+}
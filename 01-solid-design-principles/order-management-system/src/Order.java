@@ -1,4 +1,8 @@
 public interface Order {
     void calculateTotal(double price, int quantity);
+
+    // Exact total of the cart in minor units
+    long calculateTotal(Cart cart);
+
     void placeOrder(String customerName, String address);
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class OrderLoadGenerator {
+    private final OrderManager manager;
+    private final OrderSource source;
+    private final double ratePerSecond;
+    private final int threads;
+
+    public OrderLoadGenerator(OrderManager manager, OrderSource source, double ratePerSecond, int threads) {
+        if (ratePerSecond <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("Rate and thread count must be positive");
+        }
+        this.manager = manager;
+        this.source = source;
+        this.ratePerSecond = ratePerSecond;
+        this.threads = threads;
+    }
+
+    // Open loop: every order has a start time fixed by the rate up front, and a slow order never delays
+    // the schedule. Latency is taken from that scheduled time, which avoids coordinated omission.
+    public LoadResult run(long warmupMillis, long durationMillis) throws InterruptedException {
+        long intervalNanos = (long) (threads * 1e9 / ratePerSecond);
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        long measureFrom = start + TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+        long end = measureFrom + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        AtomicLong sequence = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+
+        LatencyHistogram[] responseTimes = new LatencyHistogram[threads];
+        LatencyHistogram[] serviceTimes = new LatencyHistogram[threads];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            LatencyHistogram responseTime = responseTimes[t] = new LatencyHistogram();
+            LatencyHistogram serviceTime = serviceTimes[t] = new LatencyHistogram();
+            long firstStart = start + intervalNanos * t / threads;
+            workers[t] = new Thread(() -> {
+                for (long scheduled = firstStart; scheduled < end; scheduled += intervalNanos) {
+                    waitUntil(scheduled);
+                    OrderRequest request = source.next(sequence.getAndIncrement());
+                    long began = System.nanoTime();
+                    try {
+                        manager.processOrder(request.getPrice(), request.getQuantity(), request.getCustomerName(),
+                                request.getAddress(), request.getInvoiceFile(), request.getEmail());
+                    } catch (RuntimeException e) {
+                        if (scheduled >= measureFrom) {
+                            failures.incrementAndGet();
+                        }
+                        continue;
+                    }
+                    long finished = System.nanoTime();
+                    if (scheduled >= measureFrom) {
+                        responseTime.record(finished - scheduled);
+                        serviceTime.record(finished - began);
+                    }
+                }
+            }, "load-" + t);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        LatencyHistogram responseTime = new LatencyHistogram();
+        LatencyHistogram serviceTime = new LatencyHistogram();
+        for (int t = 0; t < threads; t++) {
+            responseTime.add(responseTimes[t]);
+            serviceTime.add(serviceTimes[t]);
+        }
+        long measured = Math.max(end, System.nanoTime()) - measureFrom;
+        return new LoadResult(ratePerSecond, threads, measured, failures.get(), responseTime, serviceTime);
+    }
+
+    // Parks while the start time is far away and spins for the last stretch to keep the schedule precise
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > 100_000) {
+                LockSupport.parkNanos(remaining - 50_000);
+            }
+        }
+    }
+
+    // Usage: OrderLoadGenerator <rate/s> <seconds> [threads] [serviceMicros] [results.json] [recording.tsv]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: OrderLoadGenerator <rate/s> <seconds> [threads] [serviceMicros] [results.json] [recording.tsv]");
+            System.exit(1);
+        }
+        double rate = Double.parseDouble(args[0]);
+        long seconds = Long.parseLong(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        long serviceNanos = args.length > 3 ? TimeUnit.MICROSECONDS.toNanos(Long.parseLong(args[3])) : 0;
+        OrderSource source = args.length > 5 ? OrderSource.replay(Paths.get(args[5])) : OrderSource.synthetic(10_000);
+
+        OrderManager manager = new OrderManager(
+                LoadStubs.order(serviceNanos), LoadStubs.invoices(serviceNanos), LoadStubs.notifier(serviceNanos));
+        LoadResult result = new OrderLoadGenerator(manager, source, rate, threads)
+                .run(Math.min(5_000, seconds * 200), TimeUnit.SECONDS.toMillis(seconds));
+        System.out.println(result);
+        if (args.length > 4) {
+            result.writeJson(Paths.get(args[4]));
+        } else {
+            System.out.print(result.toJson());
+        }
+    }
+}
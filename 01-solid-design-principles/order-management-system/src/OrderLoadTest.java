@@ -0,0 +1,54 @@
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class OrderLoadTest {
+    public static void main(String[] args) throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value);
+        }
+        long median = histogram.percentile(50);
+        check(Math.abs(median - 500_000) <= 500_000 / 64, "median within 1/64 of the true value: " + median);
+        check(histogram.percentile(100) == 1_000_000 && histogram.getMin() == 1, "min and max are exact");
+
+        LatencyHistogram corrected = new LatencyHistogram();
+        corrected.recordCorrected(100_000_000, 1_000_000);
+        check(corrected.getCount() == 100, "a 100ms stall at 1ms intervals back-fills 99 missed samples");
+
+        Path recording = Files.createTempFile("orders", ".tsv");
+        Files.write(recording, Arrays.asList(
+                "# price\tquantity\tname\taddress\tinvoice\temail",
+                "10.0\t2\tJohn Doe\t123 Main St\torder_123.pdf\tjohndoe@example.com",
+                "4.5\t1\tJane Roe\t9 Side St\torder_124.pdf\tjaneroe@example.com"), StandardCharsets.UTF_8);
+        OrderSource replay = OrderSource.replay(recording);
+        check(replay.next(0).getCustomerName().equals("John Doe") && replay.next(3).getEmail().equals("janeroe@example.com"),
+                "recorded orders replay in order and repeat");
+        Files.delete(recording);
+
+        // One order stalls for 200ms; every order scheduled during the stall has to wait for it
+        AtomicLong invoices = new AtomicLong();
+        InvoiceGenerator stallingInvoices = fileName -> {
+            if (invoices.incrementAndGet() == 1_000) {
+                LoadStubs.spin(200_000_000);
+            }
+        };
+        OrderManager manager = new OrderManager(LoadStubs.order(2_000), stallingInvoices, LoadStubs.notifier(1_000));
+        LoadResult result = new OrderLoadGenerator(manager, OrderSource.synthetic(100), 2_000, 1).run(200, 1_000);
+        System.out.println(result);
+        check(result.getResponseTime().getCount() >= 1_900, "open loop kept to the schedule after the stall");
+        check(result.getResponseTime().percentile(99) > 50_000_000, "response time p99 shows the stall");
+        check(result.getServiceTime().percentile(99) < 10_000_000, "service time p99 hides it");
+        check(result.toJson().contains("\"responseTimeNanos\": {"), "results serialise to JSON");
+        System.out.print(result.toJson());
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
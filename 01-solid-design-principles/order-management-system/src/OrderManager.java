@@ -2,17 +2,57 @@ public class OrderManager {
     private final Order order;
     private final InvoiceGenerator invoiceGenerator;
     private final EmailNotifier emailNotifier;
+    private final IdempotencyIndex processedOrders;
 
     public OrderManager(Order order, InvoiceGenerator invoiceGenerator, EmailNotifier emailNotifier) {
+        this(order, invoiceGenerator, emailNotifier, null);
+    }
+
+    public OrderManager(Order order, InvoiceGenerator invoiceGenerator, EmailNotifier emailNotifier, IdempotencyIndex processedOrders) {
         this.order = order;
         this.invoiceGenerator = invoiceGenerator;
         this.emailNotifier = emailNotifier;
+        this.processedOrders = processedOrders;
     }
 
     public void processOrder(double price, int quantity, String customerName, String address, String invoiceFile, String email) {
         order.calculateTotal(price, quantity);
         order.placeOrder(customerName, address);
-        invoiceGenerator.generateInvoice(invoiceFile);
+        invoiceGenerator.generateInvoice(new OrderRequest(price, quantity, customerName, address, invoiceFile, email));
+        emailNotifier.sendEmailNotification(email);
+    }
+
+    // Returns the exact cart total in minor units
+    public long processOrder(Cart cart, String customerName, String address, String invoiceFile, String email) {
+        long total = order.calculateTotal(cart);
+        order.placeOrder(customerName, address);
+        invoiceGenerator.generateInvoice(new OrderRequest(total / 100.0, 1, customerName, address, invoiceFile, email));
         emailNotifier.sendEmailNotification(email);
+        return total;
+    }
+
+    // Returns false without any side effects if the client order ID was already processed
+    public boolean processOrder(String clientOrderId, double price, int quantity, String customerName, String address, String invoiceFile, String email) {
+        return processOnce(clientOrderId, () -> processOrder(price, quantity, customerName, address, invoiceFile, email));
+    }
+
+    public boolean processOrder(String clientOrderId, Cart cart, String customerName, String address, String invoiceFile, String email) {
+        return processOnce(clientOrderId, () -> processOrder(cart, customerName, address, invoiceFile, email));
+    }
+
+    private boolean processOnce(String clientOrderId, Runnable process) {
+        if (processedOrders == null) {
+            throw new IllegalStateException("No idempotency index configured");
+        }
+        if (!processedOrders.register(clientOrderId)) {
+            return false;
+        }
+        try {
+            process.run();
+        } catch (RuntimeException e) {
+            processedOrders.release(clientOrderId);
+            throw e;
+        }
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,81 @@
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// The stage workers are not daemon threads, so queued orders are never silently lost at exit:
+// close() must be called, usually with try-with-resources, or the JVM keeps running
+public class OrderPipeline implements AutoCloseable {
+    private final Order order;
+    private final PipelineStage invoiceStage;
+    private final PipelineStage notificationStage;
+    // Submissions hold the read lock, so close() cannot start draining while an order is being handed over
+    private final ReadWriteLock closing = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    public OrderPipeline(Order order, InvoiceGenerator invoiceGenerator, EmailNotifier emailNotifier,
+                         int stageCapacity, int invoiceWorkers, int notificationWorkers) {
+        this.order = order;
+        this.notificationStage = new PipelineStage("notification", stageCapacity, notificationWorkers,
+                request -> emailNotifier.sendEmailNotification(request.getEmail()), null);
+        this.invoiceStage = new PipelineStage("invoice", stageCapacity, invoiceWorkers,
+                request -> invoiceGenerator.generateInvoice(request), notificationStage);
+    }
+
+    public OrderPipeline(Order order, InvoiceGenerator invoiceGenerator, EmailNotifier emailNotifier) {
+        this(order, invoiceGenerator, emailNotifier, 1024, 4, 4);
+    }
+
+    // The order is totalled and placed on the caller's thread; invoicing and the email
+    // follow asynchronously. Blocks when the invoice stage is full
+    public void processOrder(double price, int quantity, String customerName, String address, String invoiceFile, String email) throws InterruptedException {
+        closing.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Order pipeline is shut down");
+            }
+            order.calculateTotal(price, quantity);
+            order.placeOrder(customerName, address);
+            invoiceStage.submit(new OrderRequest(price, quantity, customerName, address, invoiceFile, email));
+        } finally {
+            closing.readLock().unlock();
+        }
+    }
+
+    // Same as above for a cart; the later stages only see the cart's total, as a single line
+    public long processOrder(Cart cart, String customerName, String address, String invoiceFile, String email) throws InterruptedException {
+        closing.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Order pipeline is shut down");
+            }
+            long total = order.calculateTotal(cart);
+            order.placeOrder(customerName, address);
+            invoiceStage.submit(new OrderRequest(total / 100.0, 1, customerName, address, invoiceFile, email));
+            return total;
+        } finally {
+            closing.readLock().unlock();
+        }
+    }
+
+    public PipelineStage getInvoiceStage() {
+        return invoiceStage;
+    }
+
+    public PipelineStage getNotificationStage() {
+        return notificationStage;
+    }
+
+    // Stops taking new orders and waits until every accepted order has been invoiced and emailed
+    @Override
+    public void close() throws InterruptedException {
+        closing.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closing.writeLock().unlock();
+        }
+        invoiceStage.drain();
+    }
+}
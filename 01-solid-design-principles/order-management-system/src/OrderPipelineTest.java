@@ -0,0 +1,92 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class OrderPipelineTest {
+    private static final int ORDERS = 10_000;
+    private static final int SUBMITTERS = 8;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws Exception {
+        // One worker per stage: invoices and emails must follow submission order
+        List<String> invoiced = Collections.synchronizedList(new ArrayList<>());
+        List<String> emailed = Collections.synchronizedList(new ArrayList<>());
+        List<String> submitted = new ArrayList<>();
+        try (OrderPipeline pipeline = new OrderPipeline(LoadStubs.order(0), invoiced::add, emailed::add, 16, 1, 1)) {
+            for (int i = 0; i < ORDERS; i++) {
+                String id = "order_" + i;
+                submitted.add(id);
+                pipeline.processOrder(10.0, 1, "Customer", "Address", id, id);
+            }
+        }
+        check(invoiced.equals(submitted), "Single-worker invoice stage keeps submission order");
+        check(emailed.equals(submitted), "Single-worker email stage keeps submission order");
+
+        // Submitters race close(): every order that was accepted must be invoiced and emailed
+        boolean allTurnedAway = true;
+        boolean noneLost = true;
+        int acceptedTotal = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            Set<String> accepted = ConcurrentHashMap.newKeySet();
+            Set<String> invoices = ConcurrentHashMap.newKeySet();
+            Set<String> emails = ConcurrentHashMap.newKeySet();
+            AtomicInteger rejected = new AtomicInteger();
+            OrderPipeline pipeline = new OrderPipeline(LoadStubs.order(0), invoices::add, emails::add, 4, 2, 2);
+            CountDownLatch started = new CountDownLatch(SUBMITTERS);
+            Thread[] submitters = new Thread[SUBMITTERS];
+            for (int t = 0; t < SUBMITTERS; t++) {
+                int submitter = t;
+                submitters[t] = new Thread(() -> {
+                    started.countDown();
+                    for (int i = 0; ; i++) {
+                        String id = submitter + "-" + i;
+                        try {
+                            pipeline.processOrder(10.0, 1, "Customer", "Address", id, id);
+                            accepted.add(id);
+                        } catch (IllegalStateException e) {
+                            rejected.incrementAndGet();
+                            return;
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                });
+                submitters[t].start();
+            }
+            started.await();
+            Thread.sleep(2);
+            pipeline.close();
+            boolean finished = true;
+            for (Thread submitter : submitters) {
+                submitter.join(10_000);
+                finished &= !submitter.isAlive();
+            }
+            allTurnedAway &= finished && rejected.get() == SUBMITTERS;
+            noneLost &= invoices.equals(accepted) && emails.equals(accepted);
+            acceptedTotal += accepted.size();
+        }
+        check(allTurnedAway, "Every submitter racing close() was turned away, in " + ROUNDS + " rounds");
+        check(noneLost, "All " + acceptedTotal + " orders accepted before close() were invoiced and emailed");
+
+        OrderPipeline closed = new OrderPipeline(LoadStubs.order(0), file -> { }, email -> { }, 4, 1, 1);
+        closed.close();
+        boolean refused = false;
+        try {
+            closed.processOrder(10.0, 1, "Customer", "Address", "late.pdf", "late@example.com");
+        } catch (IllegalStateException e) {
+            refused = true;
+        }
+        check(refused, "Orders after close are refused");
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
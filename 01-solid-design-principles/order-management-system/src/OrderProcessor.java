@@ -6,6 +6,11 @@ public class OrderProcessor implements Order {
         System.out.println("Order total: $" + total);
     }
 
+    @Override
+    public long calculateTotal(Cart cart) {
+        return cart.getTotal();
+    }
+
     @Override
     public void placeOrder(String customerName, String address) {
         System.out.println("Order placed for: " + customerName + " at " + address);
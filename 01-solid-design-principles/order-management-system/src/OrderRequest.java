@@ -0,0 +1,47 @@
+public class OrderRequest {
+    private final double price;
+    private final int quantity;
+    private final String customerName;
+    private final String address;
+    private final String invoiceFile;
+    private final String email;
+    private final long acceptedAt;
+
+    public OrderRequest(double price, int quantity, String customerName, String address, String invoiceFile, String email) {
+        this.price = price;
+        this.quantity = quantity;
+        this.customerName = customerName;
+        this.address = address;
+        this.invoiceFile = invoiceFile;
+        this.email = email;
+        this.acceptedAt = System.nanoTime();
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public String getInvoiceFile() {
+        return invoiceFile;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public long getAcceptedAt() {
+        return acceptedAt;
+    }
+}
@@ -0,0 +1,47 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public interface OrderSource {
+    // Called concurrently by the load generator threads with a unique, increasing sequence number
+    OrderRequest next(long sequence);
+
+    // Deterministic synthetic orders: the same sequence always produces the same order
+    static OrderSource synthetic(int customers) {
+        return sequence -> {
+            int customer = (int) (sequence % customers);
+            return new OrderRequest(
+                    1 + (sequence * 7919 % 50_000) / 100.0,
+                    1 + (int) (sequence % 5),
+                    "Customer " + customer,
+                    customer + " Main St",
+                    "order_" + sequence + ".pdf",
+                    "customer" + customer + "@example.com");
+        };
+    }
+
+    // Replays a recorded stream of tab-separated lines: price, quantity, name, address, invoice file, email.
+    // The recording is repeated from the start once exhausted.
+    static OrderSource replay(Path recording) throws IOException {
+        List<OrderRequest> orders = new ArrayList<>();
+        for (String line : Files.readAllLines(recording, StandardCharsets.UTF_8)) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t", -1);
+            if (fields.length != 6) {
+                throw new IOException("Expected 6 tab-separated fields but got " + fields.length + ": " + line);
+            }
+            orders.add(new OrderRequest(Double.parseDouble(fields[0]), Integer.parseInt(fields[1]),
+                    fields[2], fields[3], fields[4], fields[5]));
+        }
+        if (orders.isEmpty()) {
+            throw new IOException("No orders in " + recording);
+        }
+        OrderRequest[] recorded = orders.toArray(new OrderRequest[0]);
+        return sequence -> recorded[(int) (sequence % recorded.length)];
+    }
+}
@@ -0,0 +1,109 @@
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+public class PipelineStage {
+    private static final OrderRequest POISON = new OrderRequest(0, 0, null, null, null, null);
+
+    private final String name;
+    private final BlockingQueue<OrderRequest> queue;
+    private final Consumer<OrderRequest> handler;
+    private final PipelineStage next;
+    private final Thread[] workers;
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public PipelineStage(String name, int capacity, int workerCount, Consumer<OrderRequest> handler, PipelineStage next) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.handler = handler;
+        this.next = next;
+        this.workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Thread(this::work, name + "-" + i);
+            workers[i].start();
+        }
+    }
+
+    // Blocks while the stage is full, which pushes back on whoever feeds it
+    public void submit(OrderRequest request) throws InterruptedException {
+        queue.put(request);
+    }
+
+    // Lets the workers finish everything already queued, then stops them and drains the next stage
+    public void drain() throws InterruptedException {
+        for (int i = 0; i < workers.length; i++) {
+            queue.put(POISON);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (next != null) {
+            next.drain();
+        }
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                OrderRequest request = queue.take();
+                if (request == POISON) {
+                    return;
+                }
+                long start = System.nanoTime();
+                try {
+                    handler.accept(request);
+                } catch (RuntimeException e) {
+                    failed.increment();
+                    System.err.println(name + " failed for " + request.getInvoiceFile() + ": " + e.getMessage());
+                    continue;
+                }
+                long latency = System.nanoTime() - start;
+                processed.increment();
+                totalLatencyNanos.add(latency);
+                maxLatencyNanos.accumulateAndGet(latency, Math::max);
+                if (next != null) {
+                    next.submit(request);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getAverageLatencyNanos() {
+        long count = processed.sum();
+        return count == 0 ? 0 : totalLatencyNanos.sum() / count;
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        return name + ": depth=" + getQueueDepth() + ", processed=" + getProcessed() + ", failed=" + getFailed()
+                + ", avg=" + getAverageLatencyNanos() / 1000 + "us, max=" + getMaxLatencyNanos() / 1000 + "us";
+    }
+}
@@ -0,0 +1,262 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class AsyncPaymentProcessor implements AutoCloseable {
+    private static final Payment POISON = new Payment(0, null, 0);
+
+    private final int defaultThreads;
+    private final int defaultCapacity;
+    private final int maxBatchSize;
+    private final long admissionTimeoutMillis;
+    private final long paymentTimeoutMillis;
+    private final Map<Class<?>, Lane> lanes = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor timeouts = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "payment-timeouts");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ReadWriteLock closing = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    // A payment waits at most admissionTimeoutMillis for room in its method's queue (0 rejects it at once
+    // if the queue is full), and fails with a TimeoutException if no worker has picked it up
+    // paymentTimeoutMillis after submission (0 lets it wait in the queue indefinitely). Once a worker
+    // starts paying it, the payment only completes with the backend's own result, so a timed-out
+    // payment is known never to have been charged and is safe to retry
+    public AsyncPaymentProcessor(int threadsPerMethod, int queueCapacity, int maxBatchSize,
+                                 long admissionTimeoutMillis, long paymentTimeoutMillis) {
+        this.defaultThreads = threadsPerMethod;
+        this.defaultCapacity = queueCapacity;
+        this.maxBatchSize = maxBatchSize;
+        this.admissionTimeoutMillis = admissionTimeoutMillis;
+        this.paymentTimeoutMillis = paymentTimeoutMillis;
+        timeouts.setRemoveOnCancelPolicy(true);
+    }
+
+    // Each PaymentMethod class gets its own queue and threads, so a slow backend only holds up its own payments.
+    // One instance serves each class: passing a different instance of a registered class is rejected
+    public void addMethod(PaymentMethod method, int threads, int queueCapacity) {
+        closing.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Payment processor is closed");
+            }
+            laneFor(method, threads, queueCapacity);
+        } finally {
+            closing.readLock().unlock();
+        }
+    }
+
+    public CompletableFuture<Void> processPayment(PaymentMethod method, double amount) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        closing.readLock().lock();
+        try {
+            if (closed) {
+                result.completeExceptionally(new IllegalStateException("Payment processor is closed"));
+                return result;
+            }
+            laneFor(method, defaultThreads, defaultCapacity).submit(new Payment(amount, result, System.nanoTime()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+        } catch (IllegalArgumentException e) {
+            result.completeExceptionally(e);
+        } finally {
+            closing.readLock().unlock();
+        }
+        return result;
+    }
+
+    private Lane laneFor(PaymentMethod method, int threads, int capacity) {
+        Lane lane = lanes.computeIfAbsent(method.getClass(), type -> new Lane(method, threads, capacity));
+        if (lane.method != method) {
+            throw new IllegalArgumentException("Another " + method.getClass().getSimpleName()
+                    + " instance is already registered; reuse that instance");
+        }
+        return lane;
+    }
+
+    public PaymentMetrics getMetrics(Class<? extends PaymentMethod> type) {
+        Lane lane = lanes.get(type);
+        return lane == null ? null : lane.metrics;
+    }
+
+    public Collection<PaymentMetrics> getMetrics() {
+        List<PaymentMetrics> all = new ArrayList<>();
+        for (Lane lane : lanes.values()) {
+            all.add(lane.metrics);
+        }
+        return all;
+    }
+
+    // Stops taking payments, lets every queue drain, then stops the workers
+    @Override
+    public void close() throws InterruptedException {
+        closing.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closing.writeLock().unlock();
+        }
+        for (Lane lane : lanes.values()) {
+            lane.drain();
+        }
+        timeouts.shutdownNow();
+    }
+
+    private static final class Payment {
+        private final double amount;
+        private final CompletableFuture<Void> result;
+        private final long submittedAt;
+        // Set by whichever comes first, a worker starting to pay it or its timeout
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private ScheduledFuture<?> timeout;
+
+        Payment(double amount, CompletableFuture<Void> result, long submittedAt) {
+            this.amount = amount;
+            this.result = result;
+            this.submittedAt = submittedAt;
+        }
+    }
+
+    private final class Lane {
+        private final PaymentMethod method;
+        private final BlockingQueue<Payment> queue;
+        private final Thread[] workers;
+        private final PaymentMetrics metrics;
+
+        Lane(PaymentMethod method, int threads, int capacity) {
+            this.method = method;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.metrics = new PaymentMetrics(method.getClass().getSimpleName());
+            this.workers = new Thread[threads];
+            for (int i = 0; i < threads; i++) {
+                workers[i] = new Thread(this::work, "payments-" + metrics.getMethod() + "-" + i);
+                // close() is what drains the queues; an unclosed processor must not keep the JVM alive
+                workers[i].setDaemon(true);
+                workers[i].start();
+            }
+        }
+
+        // Back-pressure: waits a bounded time for queue space, then rejects rather than queueing without limit
+        void submit(Payment payment) throws InterruptedException {
+            metrics.recordSubmitted();
+            if (paymentTimeoutMillis > 0) {
+                payment.timeout = timeouts.schedule(() -> {
+                    if (payment.claimed.compareAndSet(false, true)) {
+                        metrics.recordTimedOut();
+                        payment.result.completeExceptionally(new TimeoutException(
+                                metrics.getMethod() + " payment not started within " + paymentTimeoutMillis + "ms"));
+                    }
+                }, paymentTimeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            boolean queued;
+            try {
+                queued = queue.offer(payment, admissionTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // The caller fails the payment, so its timeout must not fire and count it as timed out
+                if (payment.claimed.compareAndSet(false, true) && payment.timeout != null) {
+                    payment.timeout.cancel(false);
+                }
+                throw e;
+            }
+            if (!queued && payment.claimed.compareAndSet(false, true)) {
+                if (payment.timeout != null) {
+                    payment.timeout.cancel(false);
+                }
+                metrics.recordRejected();
+                payment.result.completeExceptionally(
+                        new RejectedExecutionException(metrics.getMethod() + " queue is full"));
+            }
+        }
+
+        void drain() throws InterruptedException {
+            for (int i = 0; i < workers.length; i++) {
+                queue.put(POISON);
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+
+        // Takes whatever is queued, up to the batch size, and pays it with one payBatch call
+        private void work() {
+            List<Payment> batch = new ArrayList<>(maxBatchSize);
+            double[] amounts = new double[maxBatchSize];
+            Payment[] paying = new Payment[maxBatchSize];
+            try {
+                while (true) {
+                    batch.clear();
+                    batch.add(queue.take());
+                    queue.drainTo(batch, maxBatchSize - 1);
+                    int poisons = 0;
+                    int count = 0;
+                    for (Payment payment : batch) {
+                        if (payment == POISON) {
+                            poisons++;
+                        } else if (payment.claimed.compareAndSet(false, true)) {
+                            if (payment.timeout != null) {
+                                payment.timeout.cancel(false);
+                            }
+                            amounts[count] = payment.amount;
+                            paying[count++] = payment;
+                        }
+                    }
+                    if (count > 0) {
+                        pay(amounts, paying, count);
+                    }
+                    if (poisons > 0) {
+                        // Hand back any stop signals meant for the other workers
+                        for (int i = 1; i < poisons; i++) {
+                            queue.put(POISON);
+                        }
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // A failed batch fails every payment in it, since the method cannot say which ones went through.
+        // Errors are caught too: a worker that died here would strand its batch and hang close()
+        private void pay(double[] amounts, Payment[] paying, int count) {
+            metrics.recordBatch();
+            Throwable failure = null;
+            try {
+                method.payBatch(amounts, count);
+            } catch (Throwable e) {
+                failure = e;
+            }
+            long now = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                Payment payment = paying[i];
+                paying[i] = null;
+                if (failure != null) {
+                    if (payment.result.completeExceptionally(failure)) {
+                        metrics.recordFailed();
+                    }
+                } else if (payment.result.complete(null)) {
+                    metrics.recordCompleted(now - payment.submittedAt);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.DoubleAdder;
+
+public class AsyncPaymentTest {
+    public static void main(String[] args) throws Exception {
+        // Quiet stand-ins for the three methods; the e-wallet backend takes 100ms per batch
+        RecordingCard card = new RecordingCard();
+        RecordingCash cash = new RecordingCash();
+        SlowEWallet eWallet = new SlowEWallet(100);
+
+        try (AsyncPaymentProcessor processor = new AsyncPaymentProcessor(2, 10_000, 64, 1_000, 5_000)) {
+            List<CompletableFuture<Void>> walletPayments = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                walletPayments.add(processor.processPayment(eWallet, 500.0));
+            }
+            List<CompletableFuture<Void>> cardPayments = new ArrayList<>();
+            for (int i = 0; i < 20_000; i++) {
+                cardPayments.add(processor.processPayment(card, 2500.0));
+                cardPayments.add(processor.processPayment(cash, 300.0));
+            }
+            CompletableFuture.allOf(cardPayments.toArray(new CompletableFuture<?>[0])).get();
+            boolean walletStillBusy = walletPayments.stream().anyMatch(payment -> !payment.isDone());
+            check(walletStillBusy, "card and cash payments finish while the slow e-wallet queue is still working");
+            CompletableFuture.allOf(walletPayments.toArray(new CompletableFuture<?>[0])).get();
+            check(card.total.sum() == 2500.0 * 20_000 && cash.total.sum() == 300.0 * 20_000 && eWallet.total.sum() == 500.0 * 2_000,
+                    "every payment is paid exactly once");
+
+            PaymentMetrics cardMetrics = processor.getMetrics(RecordingCard.class);
+            check(cardMetrics.getBatches() < cardMetrics.getCompleted(), "payments are grouped into batches, avg "
+                    + String.format("%.1f", cardMetrics.getAverageBatchSize()));
+            for (PaymentMetrics metrics : processor.getMetrics()) {
+                System.out.println(metrics);
+            }
+        }
+
+        // A backend stuck for longer than the payment timeout fails the payments still queued behind it,
+        // but the payment it is already charging completes with the backend's own result
+        CountDownLatch release = new CountDownLatch(1);
+        BlockedEWallet blocked = new BlockedEWallet(release);
+        CompletableFuture<Void> stuck;
+        try (AsyncPaymentProcessor processor = new AsyncPaymentProcessor(1, 2, 1, 10, 100)) {
+            stuck = processor.processPayment(blocked, 1.0);
+            Thread.sleep(20);
+            CompletableFuture<Void> queued1 = processor.processPayment(blocked, 2.0);
+            CompletableFuture<Void> queued2 = processor.processPayment(blocked, 3.0);
+            CompletableFuture<Void> overflow = processor.processPayment(blocked, 4.0);
+            check(failsWith(overflow, RejectedExecutionException.class), "a full queue rejects new payments after the admission timeout");
+            check(failsWith(queued1, TimeoutException.class) && failsWith(queued2, TimeoutException.class),
+                    "queued payments time out");
+            Thread.sleep(150);
+            check(!stuck.isDone(), "the payment already being charged does not time out");
+            release.countDown();
+            stuck.get();
+            PaymentMetrics metrics = processor.getMetrics(BlockedEWallet.class);
+            check(metrics.getRejected() == 1 && metrics.getTimedOut() == 2, "rejections and timeouts are counted");
+
+            CompletableFuture<Void> other = processor.processPayment(new BlockedEWallet(release), 5.0);
+            check(failsWith(other, IllegalArgumentException.class), "a second instance of a registered method is rejected");
+        }
+        check(stuck.isDone() && blocked.paid.sum() == 1.0, "only the payment that was started reaches the backend");
+
+        testFailures();
+    }
+
+    private static void testFailures() throws Exception {
+        // An Error from the backend fails its batch but leaves the worker running, so close() still returns
+        CrashingCard crashing = new CrashingCard();
+        try (AsyncPaymentProcessor processor = new AsyncPaymentProcessor(1, 10, 4, 100, 0)) {
+            CompletableFuture<Void> crashed = processor.processPayment(crashing, 1.0);
+            check(failsWith(crashed, StackOverflowError.class), "an Error thrown by the backend fails its batch");
+            processor.processPayment(crashing, 2.0).get();
+            check(crashing.total.sum() == 2.0 && processor.getMetrics(CrashingCard.class).getFailed() == 1,
+                    "the worker keeps paying after an Error");
+        }
+
+        // A caller interrupted while waiting for queue space fails its payment; the timeout must not count it again
+        RecordingCard card = new RecordingCard();
+        try (AsyncPaymentProcessor processor = new AsyncPaymentProcessor(1, 10, 4, 100, 50)) {
+            Thread.currentThread().interrupt();
+            CompletableFuture<Void> interrupted = processor.processPayment(card, 1.0);
+            boolean stillInterrupted = Thread.interrupted();
+            Thread.sleep(150);
+            PaymentMetrics metrics = processor.getMetrics(RecordingCard.class);
+            check(stillInterrupted && failsWith(interrupted, InterruptedException.class) && metrics.getTimedOut() == 0,
+                    "an interrupted submission fails once and is not reported as timed out");
+        }
+        check(card.total.sum() == 0, "an interrupted submission never reaches the backend");
+    }
+
+    private static boolean failsWith(CompletableFuture<Void> payment, Class<? extends Throwable> type) throws InterruptedException {
+        try {
+            payment.get();
+            return false;
+        } catch (ExecutionException e) {
+            return type.isInstance(e.getCause());
+        }
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+
+    private static class RecordingCard implements PaymentMethod {
+        final DoubleAdder total = new DoubleAdder();
+
+        @Override
+        public void pay(double amount) {
+            total.add(amount);
+        }
+    }
+
+    private static class RecordingCash extends RecordingCard {
+    }
+
+    private static class CrashingCard extends RecordingCard {
+        private boolean crashed;
+
+        @Override
+        public void payBatch(double[] amounts, int count) {
+            if (!crashed) {
+                crashed = true;
+                throw new StackOverflowError("simulated");
+            }
+            super.payBatch(amounts, count);
+        }
+    }
+
+    private static class SlowEWallet extends RecordingCard {
+        private final long batchMillis;
+
+        SlowEWallet(long batchMillis) {
+            this.batchMillis = batchMillis;
+        }
+
+        @Override
+        public void payBatch(double[] amounts, int count) {
+            try {
+                Thread.sleep(batchMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.payBatch(amounts, count);
+        }
+    }
+
+    private static class BlockedEWallet implements PaymentMethod {
+        final DoubleAdder paid = new DoubleAdder();
+        private final CountDownLatch release;
+
+        BlockedEWallet(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void pay(double amount) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            paid.add(amount);
+        }
+    }
+}
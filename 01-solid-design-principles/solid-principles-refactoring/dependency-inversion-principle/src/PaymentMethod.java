@@ -1,4 +1,11 @@
 public interface PaymentMethod {
     void pay(double amount);
+
+    // Pays the first count amounts in one go; backends with a bulk API should override this
+    default void payBatch(double[] amounts, int count) {
+        for (int i = 0; i < count; i++) {
+            pay(amounts[i]);
+        }
+    }
 }
 
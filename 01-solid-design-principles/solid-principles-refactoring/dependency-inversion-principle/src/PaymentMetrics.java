@@ -0,0 +1,126 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PaymentMetrics {
+    private static final int BUCKETS = 64;
+
+    private final String method;
+    private final long startedAt = System.nanoTime();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    // Bucket i counts latencies in [2^(i-1), 2^i) nanoseconds
+    private final AtomicLongArray latencyBuckets = new AtomicLongArray(BUCKETS);
+
+    public PaymentMetrics(String method) {
+        this.method = method;
+    }
+
+    void recordSubmitted() {
+        submitted.increment();
+    }
+
+    void recordRejected() {
+        rejected.increment();
+    }
+
+    void recordTimedOut() {
+        timedOut.increment();
+    }
+
+    void recordBatch() {
+        batches.increment();
+    }
+
+    void recordFailed() {
+        failed.increment();
+    }
+
+    // Latency runs from submission to completion, so it includes time spent queued
+    void recordCompleted(long latencyNanos) {
+        completed.increment();
+        totalLatencyNanos.add(latencyNanos);
+        maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+        latencyBuckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(Math.max(0, latencyNanos)));
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public double getAverageBatchSize() {
+        long count = batches.sum();
+        return count == 0 ? 0 : (double) (completed.sum() + failed.sum()) / count;
+    }
+
+    public double getThroughputPerSecond() {
+        long elapsed = System.nanoTime() - startedAt;
+        return elapsed == 0 ? 0 : completed.sum() * 1e9 / elapsed;
+    }
+
+    public long getAverageLatencyNanos() {
+        long count = completed.sum();
+        return count == 0 ? 0 : totalLatencyNanos.sum() / count;
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos.get();
+    }
+
+    // Returns the upper bound, in nanoseconds, of the bucket holding the given percentile
+    public long getLatencyPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += latencyBuckets.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += latencyBuckets.get(i);
+            if (seen >= target) {
+                return i == 0 ? 0 : 1L << Math.min(i, 62);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: completed=%d, failed=%d, timedOut=%d, rejected=%d, batches=%d (avg %.1f), %.0f/s, avg=%dus, p99<=%dus, max=%dus",
+                method, getCompleted(), getFailed(), getTimedOut(), getRejected(), getBatches(), getAverageBatchSize(),
+                getThroughputPerSecond(), getAverageLatencyNanos() / 1000, getLatencyPercentile(99) / 1000, getMaxLatencyNanos() / 1000);
+    }
+}
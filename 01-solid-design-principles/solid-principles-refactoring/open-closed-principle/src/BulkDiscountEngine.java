@@ -0,0 +1,151 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BulkDiscountEngine {
+    private static final int BLOCK = 2048;
+
+    private final List<DiscountHandler> handlers = new ArrayList<>();
+    private final Map<Double, Integer> idsByRate = new HashMap<>();
+    private final Map<DiscountHandler, Integer> idsByHandler = new IdentityHashMap<>();
+    // While every handler is a plain percentage, items are priced from these tables without grouping
+    private double[] rates = new double[0];
+    private long[] basisPoints = new long[0];
+    private boolean allPercentages = true;
+
+    // Mixed handlers are grouped a block at a time, so the sorted copies stay in cache. The scratch space is
+    // reused between calls, so one engine should be used by one thread at a time.
+    private final int[] order = new int[BLOCK];
+    private final double[] groupedAmounts = new double[BLOCK];
+    private final double[] groupedDiscounts = new double[BLOCK];
+    private final long[] groupedMinorAmounts = new long[BLOCK];
+    private final long[] groupedMinorDiscounts = new long[BLOCK];
+
+    public BulkDiscountEngine(DiscountHandler... handlers) {
+        for (DiscountHandler handler : handlers) {
+            register(handler);
+        }
+    }
+
+    // Percentages with the same rate price identically and share an ID; any other handler is its own ID,
+    // since two instances of one class (two rule sets, say) can price differently
+    public int register(DiscountHandler handler) {
+        boolean percentage = handler instanceof PercentageDiscount;
+        Integer id = percentage
+                ? idsByRate.get(((PercentageDiscount) handler).getRate())
+                : idsByHandler.get(handler);
+        if (id != null) {
+            return id;
+        }
+        handlers.add(handler);
+        int newId = handlers.size() - 1;
+        rates = Arrays.copyOf(rates, handlers.size());
+        basisPoints = Arrays.copyOf(basisPoints, handlers.size());
+        if (percentage) {
+            idsByRate.put(((PercentageDiscount) handler).getRate(), newId);
+            rates[newId] = ((PercentageDiscount) handler).getRate();
+            basisPoints[newId] = ((PercentageDiscount) handler).getBasisPoints();
+        } else {
+            idsByHandler.put(handler, newId);
+            allPercentages = false;
+        }
+        return newId;
+    }
+
+    public int idOf(Customer customer) {
+        return register(customer.getDiscountHandler());
+    }
+
+    // Same handler for every item: one tight loop with no grouping at all
+    public static void applyDiscounts(DiscountHandler handler, double[] amounts, double[] payable) {
+        handler.calculateDiscounts(amounts, payable, 0, amounts.length);
+        for (int i = 0; i < amounts.length; i++) {
+            payable[i] = amounts[i] - payable[i];
+        }
+    }
+
+    // Otherwise sorts each block of items by handler, prices each group with one bulk call, then writes results back in item order
+    public void applyDiscounts(int[] handlerIds, double[] amounts, double[] payable) {
+        int n = amounts.length;
+        checkLengths(handlerIds, payable.length, n);
+        if (allPercentages) {
+            double[] r = rates;
+            for (int i = 0; i < n; i++) {
+                payable[i] = amounts[i] - amounts[i] * r[handlerIds[i]];
+            }
+            return;
+        }
+        int[] starts = new int[handlers.size() + 1];
+        for (int from = 0; from < n; from += BLOCK) {
+            int length = groupByHandler(handlerIds, from, Math.min(n, from + BLOCK), starts);
+            for (int k = 0; k < length; k++) {
+                groupedAmounts[k] = amounts[order[k]];
+            }
+            for (int h = 0; h < handlers.size(); h++) {
+                if (starts[h] < starts[h + 1]) {
+                    handlers.get(h).calculateDiscounts(groupedAmounts, groupedDiscounts, starts[h], starts[h + 1]);
+                }
+            }
+            for (int k = 0; k < length; k++) {
+                payable[order[k]] = groupedAmounts[k] - groupedDiscounts[k];
+            }
+        }
+    }
+
+    // Amounts in minor units (centavos)
+    public void applyDiscounts(int[] handlerIds, long[] amounts, long[] payable) {
+        int n = amounts.length;
+        checkLengths(handlerIds, payable.length, n);
+        if (allPercentages) {
+            long[] bp = basisPoints;
+            for (int i = 0; i < n; i++) {
+                payable[i] = amounts[i] - (amounts[i] * bp[handlerIds[i]] + 5_000) / 10_000;
+            }
+            return;
+        }
+        int[] starts = new int[handlers.size() + 1];
+        for (int from = 0; from < n; from += BLOCK) {
+            int length = groupByHandler(handlerIds, from, Math.min(n, from + BLOCK), starts);
+            for (int k = 0; k < length; k++) {
+                groupedMinorAmounts[k] = amounts[order[k]];
+            }
+            for (int h = 0; h < handlers.size(); h++) {
+                if (starts[h] < starts[h + 1]) {
+                    handlers.get(h).calculateDiscounts(groupedMinorAmounts, groupedMinorDiscounts, starts[h], starts[h + 1]);
+                }
+            }
+            for (int k = 0; k < length; k++) {
+                payable[order[k]] = groupedMinorAmounts[k] - groupedMinorDiscounts[k];
+            }
+        }
+    }
+
+    // Counting sort of one block's item indices by handler ID, filling in where each handler's group starts
+    private int groupByHandler(int[] handlerIds, int from, int to, int[] starts) {
+        Arrays.fill(starts, 0);
+        for (int i = from; i < to; i++) {
+            starts[handlerIds[i] + 1]++;
+        }
+        for (int h = 0; h < handlers.size(); h++) {
+            starts[h + 1] += starts[h];
+        }
+        int[] next = Arrays.copyOf(starts, handlers.size());
+        for (int i = from; i < to; i++) {
+            order[next[handlerIds[i]]++] = i;
+        }
+        return to - from;
+    }
+
+    // Checked before either path, so the rate table never reads past the IDs or writes past the results
+    private static void checkLengths(int[] handlerIds, int payableLength, int n) {
+        if (handlerIds.length != n) {
+            throw new IllegalArgumentException("Expected " + n + " handler IDs but got " + handlerIds.length);
+        }
+        if (payableLength < n) {
+            throw new IllegalArgumentException("Payable array holds " + payableLength + " of " + n + " items");
+        }
+    }
+}
@@ -0,0 +1,123 @@
+import java.util.Arrays;
+import java.util.Random;
+
+public class BulkDiscountTest {
+    private static final int ITEMS = 10_000_000;
+
+    public static void main(String[] args) {
+        Customer[] customers = {
+                new Customer("LeBron", new SeniorCitizen()),
+                new Customer("Austin", new Student()),
+                new Customer("Luka", new Regular())};
+        BulkDiscountEngine engine = new BulkDiscountEngine(
+                customers[0].getDiscountHandler(), customers[1].getDiscountHandler(), customers[2].getDiscountHandler());
+
+        Random random = new Random(11);
+        Customer[] buyers = new Customer[ITEMS];
+        int[] handlerIds = new int[ITEMS];
+        double[] amounts = new double[ITEMS];
+        long[] minorAmounts = new long[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            buyers[i] = customers[random.nextInt(customers.length)];
+            handlerIds[i] = engine.idOf(buyers[i]);
+            minorAmounts[i] = random.nextInt(1_000_000);
+            amounts[i] = minorAmounts[i] / 100.0;
+        }
+
+        double[] expected = new double[ITEMS];
+        double[] payable = new double[ITEMS];
+        double[] uniformPayable = new double[ITEMS];
+        long[] minorPayable = new long[ITEMS];
+        // A handler that is not a flat percentage forces the grouped path
+        BulkDiscountEngine mixed = new BulkDiscountEngine(
+                customers[0].getDiscountHandler(), customers[1].getDiscountHandler(), customers[2].getDiscountHandler(),
+                amount -> amount >= 5_000 ? 250 : 0);
+        double[] mixedPayable = new double[ITEMS];
+
+        long perItemNanos = Long.MAX_VALUE;
+        long bulkNanos = Long.MAX_VALUE;
+        long groupedNanos = Long.MAX_VALUE;
+        long uniformNanos = Long.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITEMS; i++) {
+                expected[i] = buyers[i].applyDiscount(amounts[i]);
+            }
+            perItemNanos = Math.min(perItemNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            engine.applyDiscounts(handlerIds, amounts, payable);
+            bulkNanos = Math.min(bulkNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            mixed.applyDiscounts(handlerIds, amounts, mixedPayable);
+            groupedNanos = Math.min(groupedNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            BulkDiscountEngine.applyDiscounts(customers[0].getDiscountHandler(), amounts, uniformPayable);
+            uniformNanos = Math.min(uniformNanos, System.nanoTime() - start);
+        }
+
+        boolean same = true;
+        for (int i = 0; i < ITEMS; i++) {
+            same &= Double.compare(expected[i], payable[i]) == 0;
+        }
+        check(same, "bulk prices match Customer.applyDiscount exactly");
+        check(Arrays.equals(payable, mixedPayable), "grouped path gives the same prices");
+
+        engine.applyDiscounts(handlerIds, minorAmounts, minorPayable);
+        boolean rounded = true;
+        for (int i = 0; i < ITEMS; i++) {
+            long discount = Math.round(buyers[i].getDiscountHandler().calculateDiscount(minorAmounts[i]));
+            rounded &= minorPayable[i] == minorAmounts[i] - discount;
+        }
+        check(rounded, "centavo prices match the per-item discount rounded half up");
+
+        // Instances of one class can price differently, so they must not share an ID
+        BulkDiscountEngine sales = new BulkDiscountEngine();
+        int tenPercent = sales.register(new SeasonalSale(0.10));
+        int halfOff = sales.register(new SeasonalSale(0.50));
+        check(tenPercent != halfOff && sales.register(new SeasonalSale(0.10)) == tenPercent,
+                "percentages share an ID only when their rates match");
+        double[] salePayable = new double[2];
+        sales.applyDiscounts(new int[] {tenPercent, halfOff}, new double[] {100.0, 100.0}, salePayable);
+        check(salePayable[0] == 90.0 && salePayable[1] == 50.0, "each sale rate prices its own items");
+
+        DiscountRuleEngine rules = new DiscountRuleEngine();
+        int seasonal = rules.addRule(new DiscountRule("Seasonal Sale", new SeasonalSale(0.10), 0));
+        int voucher = rules.addRule(new DiscountRule("Voucher", new SeasonalSale(0.50), 0, 20.0));
+        BulkDiscountEngine compiled = new BulkDiscountEngine();
+        int seasonalId = compiled.register(rules.forRules(seasonal));
+        int voucherId = compiled.register(rules.forRules(voucher));
+        check(seasonalId != voucherId && compiled.register(rules.forRules(seasonal)) == seasonalId,
+                "each compiled rule set gets its own ID");
+        compiled.applyDiscounts(new int[] {seasonalId, voucherId}, new double[] {100.0, 100.0}, salePayable);
+        check(salePayable[0] == 90.0 && salePayable[1] == 80.0, "compiled rule sets price their own items");
+
+        check(rejects(() -> engine.applyDiscounts(new int[1], new double[2], new double[2]))
+                        && rejects(() -> engine.applyDiscounts(new int[2], new long[2], new long[1]))
+                        && rejects(() -> mixed.applyDiscounts(new int[2], new double[2], new double[1])),
+                "mismatched array lengths are rejected on both paths");
+
+        System.out.println("Per item:        " + perItemNanos / 1_000_000 + " ms for " + ITEMS + " items");
+        System.out.println("Rate table:      " + bulkNanos / 1_000_000 + " ms");
+        System.out.println("Grouped:         " + groupedNanos / 1_000_000 + " ms");
+        System.out.println("Single handler:  " + uniformNanos / 1_000_000 + " ms");
+    }
+
+    private static boolean rejects(Runnable call) {
+        try {
+            call.run();
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
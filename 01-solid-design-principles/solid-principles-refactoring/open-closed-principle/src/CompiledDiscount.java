@@ -0,0 +1,145 @@
+import java.util.ArrayList;
+import java.util.List;
+
+public class CompiledDiscount implements DiscountHandler {
+    // Set when the whole rule set reduced to one rate, which is the common case
+    private final boolean linear;
+    private final double linearRate;
+
+    // Otherwise, per level: one summed rate for the uncapped percentages, then capped percentages, then other handlers
+    private final double[] levelRates;
+    private final int[] cappedEnd;
+    private final double[] cappedRates;
+    private final double[] caps;
+    private final int[] handlerEnd;
+    private final DiscountHandler[] handlers;
+
+    private final double maxRate;
+    private final double maxAmount;
+
+    // Rules must already be sorted by precedence
+    CompiledDiscount(List<DiscountRule> rules, double maxRate, double maxAmount) {
+        this.maxRate = maxRate;
+        this.maxAmount = maxAmount;
+        List<Double> rates = new ArrayList<>();
+        List<Integer> cappedEnds = new ArrayList<>();
+        List<Double> cappedRateList = new ArrayList<>();
+        List<Double> capList = new ArrayList<>();
+        List<Integer> handlerEnds = new ArrayList<>();
+        List<DiscountHandler> handlerList = new ArrayList<>();
+
+        boolean previousWasPlain = false;
+        for (int start = 0; start < rules.size(); ) {
+            int end = start;
+            double rate = 0;
+            int cappedBefore = cappedRateList.size();
+            int handlersBefore = handlerList.size();
+            while (end < rules.size() && rules.get(end).getPrecedence() == rules.get(start).getPrecedence()) {
+                DiscountRule rule = rules.get(end++);
+                if (rule.getHandler() instanceof PercentageDiscount) {
+                    double ruleRate = ((PercentageDiscount) rule.getHandler()).getRate();
+                    if (rule.isCapped()) {
+                        cappedRateList.add(ruleRate);
+                        capList.add(rule.getMaxDiscount());
+                    } else {
+                        rate += ruleRate;
+                    }
+                } else {
+                    handlerList.add(new CappedHandler(rule.getHandler(), rule.getMaxDiscount()));
+                }
+            }
+            boolean plain = cappedRateList.size() == cappedBefore && handlerList.size() == handlersBefore;
+            if (plain && previousWasPlain) {
+                // Two levels of plain percentages fold into one: (1 - a)(1 - b) = 1 - (a + b - ab)
+                int last = rates.size() - 1;
+                double earlier = rates.get(last);
+                rates.set(last, 1 - (1 - earlier) * (1 - Math.min(1, rate)));
+            } else {
+                rates.add(Math.min(1, rate));
+                cappedEnds.add(cappedRateList.size());
+                handlerEnds.add(handlerList.size());
+            }
+            previousWasPlain = plain;
+            start = end;
+        }
+
+        this.linear = cappedRateList.isEmpty() && handlerList.isEmpty() && rates.size() <= 1;
+        this.linearRate = Math.min(maxRate, rates.isEmpty() ? 0 : rates.get(0));
+        this.levelRates = toDoubles(rates);
+        this.cappedEnd = toInts(cappedEnds);
+        this.cappedRates = toDoubles(cappedRateList);
+        this.caps = toDoubles(capList);
+        this.handlerEnd = toInts(handlerEnds);
+        this.handlers = handlerList.toArray(new DiscountHandler[0]);
+    }
+
+    @Override
+    public double calculateDiscount(double amount) {
+        if (linear) {
+            return Math.min(amount * linearRate, maxAmount);
+        }
+        double price = amount;
+        int capped = 0;
+        int handler = 0;
+        for (int level = 0; level < levelRates.length; level++) {
+            double discount = price * levelRates[level];
+            for (; capped < cappedEnd[level]; capped++) {
+                discount += Math.min(price * cappedRates[capped], caps[capped]);
+            }
+            for (; handler < handlerEnd[level]; handler++) {
+                discount += handlers[handler].calculateDiscount(price);
+            }
+            price = Math.max(0, price - discount);
+        }
+        return Math.min(Math.min(amount - price, amount * maxRate), maxAmount);
+    }
+
+    @Override
+    public void calculateDiscounts(double[] amounts, double[] discounts, int from, int to) {
+        if (!linear) {
+            DiscountHandler.super.calculateDiscounts(amounts, discounts, from, to);
+            return;
+        }
+        double rate = linearRate;
+        double cap = maxAmount;
+        for (int i = from; i < to; i++) {
+            discounts[i] = Math.min(amounts[i] * rate, cap);
+        }
+    }
+
+    public boolean isLinear() {
+        return linear;
+    }
+
+    private static double[] toDoubles(List<Double> values) {
+        double[] result = new double[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    private static int[] toInts(List<Integer> values) {
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    // A handler that is not a plain percentage keeps its own call, with its rule's cap applied afterwards
+    private static final class CappedHandler implements DiscountHandler {
+        private final DiscountHandler handler;
+        private final double maxDiscount;
+
+        CappedHandler(DiscountHandler handler, double maxDiscount) {
+            this.handler = handler;
+            this.maxDiscount = maxDiscount;
+        }
+
+        @Override
+        public double calculateDiscount(double amount) {
+            return Math.min(handler.calculateDiscount(amount), maxDiscount);
+        }
+    }
+}
@@ -14,4 +14,8 @@ public class Customer {
     public String getName() {
         return name;
     }
+
+    public DiscountHandler getDiscountHandler() {
+        return discount;
+    }
 }
@@ -1,3 +1,17 @@
 public interface DiscountHandler {
     double calculateDiscount(double amount);
+
+    // Bulk form for repricing many amounts at once; handlers override it with a plain loop the JIT can vectorize
+    default void calculateDiscounts(double[] amounts, double[] discounts, int from, int to) {
+        for (int i = from; i < to; i++) {
+            discounts[i] = calculateDiscount(amounts[i]);
+        }
+    }
+
+    // Amounts in minor units (centavos), discounts rounded half up to a whole centavo
+    default void calculateDiscounts(long[] amounts, long[] discounts, int from, int to) {
+        for (int i = from; i < to; i++) {
+            discounts[i] = Math.round(calculateDiscount(amounts[i]));
+        }
+    }
 }
@@ -0,0 +1,39 @@
+public class DiscountRule {
+    private final String name;
+    private final DiscountHandler handler;
+    private final int precedence;
+    private final double maxDiscount;
+
+    // Rules with the same precedence stack on the same price; a higher precedence applies to the price left after
+    // every lower one, like a seasonal sale taken off an already discounted senior price
+    public DiscountRule(String name, DiscountHandler handler, int precedence) {
+        this(name, handler, precedence, Double.POSITIVE_INFINITY);
+    }
+
+    public DiscountRule(String name, DiscountHandler handler, int precedence, double maxDiscount) {
+        this.name = name;
+        this.handler = handler;
+        this.precedence = precedence;
+        this.maxDiscount = maxDiscount;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DiscountHandler getHandler() {
+        return handler;
+    }
+
+    public int getPrecedence() {
+        return precedence;
+    }
+
+    public double getMaxDiscount() {
+        return maxDiscount;
+    }
+
+    public boolean isCapped() {
+        return maxDiscount != Double.POSITIVE_INFINITY;
+    }
+}
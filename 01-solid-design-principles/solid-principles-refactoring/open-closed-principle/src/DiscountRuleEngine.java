@@ -0,0 +1,85 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class DiscountRuleEngine {
+    private static final int MAX_RULES = 64;
+
+    // Replaced as a whole on every change, so a cached evaluator can never outlive the rules it was built from
+    private volatile Configuration configuration =
+            new Configuration(Collections.<DiscountRule>emptyList(), 1.0, Double.POSITIVE_INFINITY);
+
+    // Returns the rule's ID; a segment is the set of rule IDs that apply to a customer
+    public synchronized int addRule(DiscountRule rule) {
+        Configuration current = configuration;
+        if (current.rules.size() == MAX_RULES) {
+            throw new IllegalStateException("At most " + MAX_RULES + " rules are supported");
+        }
+        List<DiscountRule> rules = new ArrayList<>(current.rules);
+        rules.add(rule);
+        configuration = new Configuration(rules, current.maxRate, current.maxAmount);
+        return rules.size() - 1;
+    }
+
+    // Caps the combined discount of every segment, as a share of the price and as an amount
+    public synchronized void setTotalCap(double maxRate, double maxAmount) {
+        configuration = new Configuration(configuration.rules, maxRate, maxAmount);
+    }
+
+    public CompiledDiscount forRules(int... ruleIds) {
+        int ruleCount = configuration.rules.size();
+        long segment = 0;
+        for (int id : ruleIds) {
+            // Shifts wrap at 64, so an unchecked ID would silently select some other rule
+            if (id < 0 || id >= ruleCount) {
+                throw new IllegalArgumentException("Unknown rule: " + id);
+            }
+            segment |= 1L << id;
+        }
+        return forSegment(segment);
+    }
+
+    // Compiled once per segment and then shared until the rules or the cap change
+    public CompiledDiscount forSegment(long segment) {
+        Configuration current = configuration;
+        CompiledDiscount evaluator = current.compiled.get(segment);
+        if (evaluator == null) {
+            evaluator = current.compiled.computeIfAbsent(segment, current::compile);
+        }
+        return evaluator;
+    }
+
+    public int getCompiledCount() {
+        return configuration.compiled.size();
+    }
+
+    private static final class Configuration {
+        private final List<DiscountRule> rules;
+        private final double maxRate;
+        private final double maxAmount;
+        private final Map<Long, CompiledDiscount> compiled = new ConcurrentHashMap<>();
+
+        Configuration(List<DiscountRule> rules, double maxRate, double maxAmount) {
+            this.rules = rules;
+            this.maxRate = maxRate;
+            this.maxAmount = maxAmount;
+        }
+
+        CompiledDiscount compile(long segment) {
+            if (rules.size() < MAX_RULES && (segment >>> rules.size()) != 0) {
+                throw new IllegalArgumentException("Unknown rule in segment " + Long.toBinaryString(segment));
+            }
+            List<DiscountRule> selected = new ArrayList<>();
+            for (int id = 0; id < rules.size(); id++) {
+                if ((segment & (1L << id)) != 0) {
+                    selected.add(rules.get(id));
+                }
+            }
+            selected.sort(Comparator.comparingInt(DiscountRule::getPrecedence));
+            return new CompiledDiscount(selected, maxRate, maxAmount);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class DiscountRuleTest {
+    private static final int EVALUATIONS = 50_000_000;
+
+    public static void main(String[] args) {
+        DiscountRuleEngine engine = new DiscountRuleEngine();
+        int senior = engine.addRule(new DiscountRule("Senior Citizen", new SeniorCitizen(), 0));
+        int student = engine.addRule(new DiscountRule("Student", new Student(), 0));
+        int seasonal = engine.addRule(new DiscountRule("Seasonal Sale", new SeasonalSale(0.10), 1));
+        int voucher = engine.addRule(new DiscountRule("Voucher", new SeasonalSale(0.50), 1, 20.0));
+        int bulkBuyer = engine.addRule(new DiscountRule("Bulk Buyer", amount -> amount >= 100 ? 5.0 : 0.0, 2));
+        engine.setTotalCap(0.25, 1_000);
+
+        Customer lebron = new Customer("LeBron", engine.forRules(senior, seasonal));
+        check(close(lebron.applyDiscount(150.0), 112.5), "senior then seasonal sale is capped at 25%: " + lebron.applyDiscount(150.0));
+        check(close(engine.forRules(student, seasonal).calculateDiscount(150.0), 28.5), "seasonal sale applies to the student price");
+        check(close(engine.forRules(voucher).calculateDiscount(30.0), 7.5) && close(engine.forRules(voucher).calculateDiscount(300.0), 20.0),
+                "a capped rule stops at its cap");
+        check(engine.forRules(senior, seasonal) == engine.forRules(seasonal, senior), "each segment is compiled once and cached");
+        check(engine.forRules(senior, seasonal).isLinear() && !engine.forRules(senior, voucher).isLinear(),
+                "plain percentages fold into a single rate");
+        check(rejects(engine, 5) && rejects(engine, 64) && rejects(engine, -1) && rejects(engine, senior, 65),
+                "unknown rule IDs are rejected instead of wrapping onto another rule");
+
+        // The compiled evaluator must agree with applying the same rules one level at a time
+        Random random = new Random(5);
+        boolean agrees = true;
+        for (int i = 0; i < 100_000; i++) {
+            long segment = random.nextInt(1 << 5);
+            double amount = random.nextInt(100_000) / 100.0;
+            double expected = interpret(segment, amount, 0.25, 1_000);
+            agrees &= close(engine.forSegment(segment).calculateDiscount(amount), expected);
+        }
+        check(agrees, "compiled evaluators match a step-by-step evaluation of the rules");
+
+        DiscountHandler compiled = engine.forRules(senior, seasonal);
+        DiscountHandler[] chain = {new SeniorCitizen(), new SeasonalSale(0.10)};
+        double sink = 0;
+        long chainNanos = Long.MAX_VALUE;
+        long compiledNanos = Long.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < EVALUATIONS; i++) {
+                double price = 100 + (i & 1023);
+                for (DiscountHandler handler : chain) {
+                    price -= handler.calculateDiscount(price);
+                }
+                sink += price;
+            }
+            chainNanos = Math.min(chainNanos, System.nanoTime() - start);
+            start = System.nanoTime();
+            for (int i = 0; i < EVALUATIONS; i++) {
+                double amount = 100 + (i & 1023);
+                sink += amount - compiled.calculateDiscount(amount);
+            }
+            compiledNanos = Math.min(compiledNanos, System.nanoTime() - start);
+        }
+        System.out.printf("Handler chain: %.2f ns/price, compiled: %.2f ns/price (%s)%n",
+                (double) chainNanos / EVALUATIONS, (double) compiledNanos / EVALUATIONS, sink > 0 ? "ok" : "?");
+    }
+
+    private static double interpret(long segment, double amount, double maxRate, double maxAmount) {
+        List<DiscountRule> rules = new ArrayList<>();
+        for (int id = 0; id < 5; id++) {
+            if ((segment & (1L << id)) != 0) {
+                rules.add(RULES[id]);
+            }
+        }
+        rules.sort((a, b) -> Integer.compare(a.getPrecedence(), b.getPrecedence()));
+        double price = amount;
+        for (int start = 0; start < rules.size(); ) {
+            double discount = 0;
+            int end = start;
+            while (end < rules.size() && rules.get(end).getPrecedence() == rules.get(start).getPrecedence()) {
+                DiscountRule rule = rules.get(end++);
+                discount += Math.min(rule.getHandler().calculateDiscount(price), rule.getMaxDiscount());
+            }
+            price = Math.max(0, price - discount);
+            start = end;
+        }
+        return Math.min(Math.min(amount - price, amount * maxRate), maxAmount);
+    }
+
+    private static final DiscountRule[] RULES = {
+            new DiscountRule("Senior Citizen", new SeniorCitizen(), 0),
+            new DiscountRule("Student", new Student(), 0),
+            new DiscountRule("Seasonal Sale", new SeasonalSale(0.10), 1),
+            new DiscountRule("Voucher", new SeasonalSale(0.50), 1, 20.0),
+            new DiscountRule("Bulk Buyer", amount -> amount >= 100 ? 5.0 : 0.0, 2)};
+
+    private static boolean rejects(DiscountRuleEngine engine, int... ruleIds) {
+        try {
+            engine.forRules(ruleIds);
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    private static boolean close(double actual, double expected) {
+        return Math.abs(actual - expected) < 1e-9;
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
@@ -0,0 +1,40 @@
+// The pricing methods are final: compiled rules and the bulk engine price a percentage from its rate alone
+public abstract class PercentageDiscount implements DiscountHandler {
+    private final double rate;
+    private final long basisPoints;
+
+    protected PercentageDiscount(double rate) {
+        this.rate = rate;
+        this.basisPoints = Math.round(rate * 10_000);
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public long getBasisPoints() {
+        return basisPoints;
+    }
+
+    @Override
+    public final double calculateDiscount(double amount) {
+        return amount * rate;
+    }
+
+    @Override
+    public final void calculateDiscounts(double[] amounts, double[] discounts, int from, int to) {
+        double r = rate;
+        for (int i = from; i < to; i++) {
+            discounts[i] = amounts[i] * r;
+        }
+    }
+
+    // Integer arithmetic on non-negative amounts, half up; the rate is applied in basis points
+    @Override
+    public final void calculateDiscounts(long[] amounts, long[] discounts, int from, int to) {
+        long bp = basisPoints;
+        for (int i = from; i < to; i++) {
+            discounts[i] = (amounts[i] * bp + 5_000) / 10_000;
+        }
+    }
+}
@@ -1,6 +1,5 @@
-public class Regular implements DiscountHandler {
-    @Override
-    public double calculateDiscount(double amount) {
-        return 0.0;
+public class Regular extends PercentageDiscount {
+    public Regular() {
+        super(0.0);
     }
 }
\ No newline at end of file
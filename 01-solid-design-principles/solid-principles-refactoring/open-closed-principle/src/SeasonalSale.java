@@ -0,0 +1,5 @@
+public class SeasonalSale extends PercentageDiscount {
+    public SeasonalSale(double rate) {
+        super(rate);
+    }
+}
\ No newline at end of file
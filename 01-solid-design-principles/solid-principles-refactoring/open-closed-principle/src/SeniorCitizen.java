@@ -1,6 +1,5 @@
-public class SeniorCitizen implements DiscountHandler {
-    @Override
-    public double calculateDiscount(double amount) {
-        return amount * 0.20;
+public class SeniorCitizen extends PercentageDiscount {
+    public SeniorCitizen() {
+        super(0.20);
     }
 }
\ No newline at end of file
@@ -1,6 +1,5 @@
-public class Student implements DiscountHandler {
-    @Override
-    public double calculateDiscount(double amount) {
-        return amount * 0.10;
+public class Student extends PercentageDiscount {
+    public Student() {
+        super(0.10);
     }
 }
\ No newline at end of file
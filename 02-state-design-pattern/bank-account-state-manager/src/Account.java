@@ -6,7 +6,7 @@ public class Account {
     public Account(String accountNumber, double balance) {
         this.accountNumber = accountNumber;
         this.balance = balance;
-        this.accountState = new ActiveState();  // Default state is Active
+        this.accountState = ActiveState.INSTANCE;  // Default state is Active
     }
 
     public String getAccountNumber() {
@@ -0,0 +1,62 @@
+import java.util.Collection;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+public class AccountBatchProcessor {
+    private final boolean parallel;
+
+    public AccountBatchProcessor(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public AccountBatchProcessor() {
+        this(true);
+    }
+
+    // Credits interest to every active account, rounded to the centavo
+    public BatchSummary accrueInterest(Collection<Account> accounts, double rate) {
+        return run(accounts, ActiveState.INSTANCE, account -> {
+            long balanceCents = Math.round(account.getBalance() * 100);
+            long interestCents = Math.round(balanceCents * rate);
+            account.setBalance((balanceCents + interestCents) / 100.0);
+            return interestCents;
+        });
+    }
+
+    // Suspends active accounts that fell below the minimum balance; the summary's affected
+    // count is the number suspended, and no money is moved
+    public BatchSummary suspendBelow(Collection<Account> accounts, double minimumBalance) {
+        return run(accounts, ActiveState.INSTANCE, account -> {
+            if (account.getBalance() >= minimumBalance) {
+                return -1;
+            }
+            account.setAccountState(SuspendedState.INSTANCE);
+            return 0;
+        });
+    }
+
+    // Closes suspended accounts that have nothing left in them
+    public BatchSummary closeEmpty(Collection<Account> accounts) {
+        return run(accounts, SuspendedState.INSTANCE, account -> {
+            if (account.getBalance() > 0) {
+                return -1;
+            }
+            account.setAccountState(ClosedState.INSTANCE);
+            return 0;
+        });
+    }
+
+    // Accounts outside the required state are counted as skipped and never dispatched to;
+    // operations return the money they moved in cents (0 for a state change alone), or -1 when
+    // they left the account alone
+    private BatchSummary run(Collection<Account> accounts, AccountState required, ToLongFunction<Account> operation) {
+        Stream<Account> stream = parallel ? accounts.parallelStream() : accounts.stream();
+        return stream.collect(BatchSummary::new, (summary, account) -> {
+            if (account.getAccountState() != required) {
+                summary.skip();
+            } else {
+                summary.record(operation.applyAsLong(account));
+            }
+        }, BatchSummary::merge);
+    }
+}
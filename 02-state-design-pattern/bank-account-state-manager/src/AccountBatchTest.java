@@ -0,0 +1,77 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class AccountBatchTest {
+    private static final int ACCOUNTS = 500_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        boolean identical = true;
+        for (int round = 0; round < ROUNDS; round++) {
+            long roundSeed = random.nextLong();
+            List<Account> serial = randomAccounts(roundSeed);
+            List<Account> parallel = randomAccounts(roundSeed);
+            identical &= runJobs(new AccountBatchProcessor(false), serial).equals(runJobs(new AccountBatchProcessor(true), parallel));
+            for (int i = 0; i < ACCOUNTS; i++) {
+                Account a = serial.get(i);
+                Account b = parallel.get(i);
+                identical &= a.getBalance() == b.getBalance() && a.getAccountState() == b.getAccountState();
+            }
+        }
+        check(identical, "Serial and parallel runs agree on summaries, balances and states over "
+                + ROUNDS + " random sets of " + ACCOUNTS + " accounts (seed " + seed + ")");
+
+        List<Account> accounts = randomAccounts(seed);
+        long activeBelow = 0;
+        long centsBefore = 0;
+        for (Account account : accounts) {
+            if (account.getAccountState() == ActiveState.INSTANCE && account.getBalance() < 500.0) {
+                activeBelow++;
+            }
+            centsBefore += Math.round(account.getBalance() * 100);
+        }
+        AccountBatchProcessor processor = new AccountBatchProcessor();
+        BatchSummary sweep = processor.suspendBelow(accounts, 500.0);
+        check(sweep.getAffected() == activeBelow && sweep.getMovedCents() == 0,
+                "Suspension sweep counts " + activeBelow + " suspended accounts and moves no money");
+        BatchSummary interest = processor.accrueInterest(accounts, 0.0125);
+        long centsAfter = 0;
+        for (Account account : accounts) {
+            centsAfter += Math.round(account.getBalance() * 100);
+        }
+        check(interest.getMovedCents() == centsAfter - centsBefore, "Interest summary matches the money credited");
+    }
+
+    // Balances in whole centavos spread over all three states
+    private static List<Account> randomAccounts(long seed) {
+        Random random = new Random(seed);
+        AccountState[] states = { ActiveState.INSTANCE, ActiveState.INSTANCE, SuspendedState.INSTANCE, ClosedState.INSTANCE };
+        List<Account> accounts = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            long cents = random.nextInt(10) == 0 ? 0 : random.nextInt(10_000_000);
+            Account account = new Account("ACC-" + i, cents / 100.0);
+            account.setAccountState(states[random.nextInt(states.length)]);
+            accounts.add(account);
+        }
+        return accounts;
+    }
+
+    private static List<BatchSummary> runJobs(AccountBatchProcessor processor, List<Account> accounts) {
+        List<BatchSummary> summaries = new ArrayList<>();
+        summaries.add(processor.accrueInterest(accounts, 0.0125));
+        summaries.add(processor.suspendBelow(accounts, 500.0));
+        summaries.add(processor.closeEmpty(accounts));
+        summaries.add(processor.accrueInterest(accounts, 0.0375));
+        return summaries;
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
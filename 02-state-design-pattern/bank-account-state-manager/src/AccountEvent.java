@@ -0,0 +1,53 @@
+public class AccountEvent {
+    public static final byte OPEN = 1;
+    public static final byte DEPOSIT = 2;
+    public static final byte WITHDRAW = 3;
+    public static final byte SUSPEND = 4;
+    public static final byte ACTIVATE = 5;
+    public static final byte CLOSE = 6;
+
+    private final long sequence;
+    private final byte type;
+    private final int accountId;
+    private final long amount;
+    private final long word;
+    private final String accountNumber;
+
+    public AccountEvent(long sequence, byte type, int accountId, long amount, long word, String accountNumber) {
+        this.sequence = sequence;
+        this.type = type;
+        this.accountId = accountId;
+        this.amount = amount;
+        this.word = word;
+        this.accountNumber = accountNumber;
+    }
+
+    public static boolean isKnownType(byte type) {
+        return type >= OPEN && type <= CLOSE;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    public int getAccountId() {
+        return accountId;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    // The account's packed state and balance right after this event was applied
+    public long getWord() {
+        return word;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+}
@@ -0,0 +1,185 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ObjIntConsumer;
+
+public class AccountLedger {
+    // Each account is one long: the top 2 bits hold its state, the rest its balance in
+    // minor units, so a state check and a balance update succeed or fail together
+    private static final int STATE_SHIFT = 62;
+    private static final long BALANCE_MASK = (1L << STATE_SHIFT) - 1;
+    // Holds an account number while its opening is in progress; findId reports it as unknown
+    private static final Integer OPENING = -1;
+
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+    private final int capacity;
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final Map<String, Integer> idsByAccountNumber = new ConcurrentHashMap<>();
+
+    public AccountLedger(int capacity, int stripeCount) {
+        if (Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a power of two");
+        }
+        this.capacity = capacity;
+        this.stripeMask = stripeCount - 1;
+        this.stripes = new AtomicLongArray[stripeCount];
+        int perStripe = (capacity + stripeCount - 1) / stripeCount;
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new AtomicLongArray(perStripe);
+        }
+    }
+
+    public AccountLedger(int capacity) {
+        this(capacity, 64);
+    }
+
+    public int open(String accountNumber, long balance) {
+        if (balance < 0 || balance > BALANCE_MASK) {
+            throw new IllegalArgumentException("Invalid opening balance: " + balance);
+        }
+        // Claim the number before taking an id, so a duplicate never uses up a slot
+        if (idsByAccountNumber.putIfAbsent(accountNumber, OPENING) != null) {
+            throw new IllegalArgumentException("Account already exists: " + accountNumber);
+        }
+        int id = nextId.getAndIncrement();
+        if (id >= capacity) {
+            idsByAccountNumber.remove(accountNumber, OPENING);
+            throw new IllegalStateException("Ledger is full");
+        }
+        // The slot is written before the number maps to it, so no deposit can race the opening write
+        stripe(id).set(slot(id), pack(AccountStateTable.ACTIVE, balance));
+        idsByAccountNumber.put(accountNumber, id);
+        return id;
+    }
+
+    public int findId(String accountNumber) {
+        Integer id = idsByAccountNumber.get(accountNumber);
+        return id == null ? -1 : id;
+    }
+
+    public void forEachAccount(ObjIntConsumer<String> action) {
+        idsByAccountNumber.forEach((accountNumber, id) -> {
+            if (id >= 0) {
+                action.accept(accountNumber, id);
+            }
+        });
+    }
+
+    public int size() {
+        return Math.min(nextId.get(), capacity);
+    }
+
+    // The packed state and balance of an account, as used by snapshots and the transaction log
+    public long getWord(int id) {
+        return stripe(id).get(slot(id));
+    }
+
+    public void restore(int id, String accountNumber, long word) {
+        if (id >= capacity) {
+            throw new IllegalStateException("Ledger is full");
+        }
+        nextId.accumulateAndGet(id + 1, Math::max);
+        if (accountNumber != null) {
+            idsByAccountNumber.put(accountNumber, id);
+        }
+        stripe(id).set(slot(id), word);
+    }
+
+    // Takes back an opened account whose opening could not be recorded; its id is not reused
+    public void discard(int id, String accountNumber) {
+        idsByAccountNumber.remove(accountNumber, id);
+        stripe(id).set(slot(id), pack(AccountStateTable.CLOSED, 0));
+    }
+
+    public long getBalance(int id) {
+        return stripe(id).get(slot(id)) & BALANCE_MASK;
+    }
+
+    public AccountState getAccountState(int id) {
+        return AccountStateTable.toState(state(stripe(id).get(slot(id))));
+    }
+
+    public boolean deposit(int id, long amount) {
+        if (amount <= 0) {
+            return false;
+        }
+        AtomicLongArray stripe = stripe(id);
+        int slot = slot(id);
+        while (true) {
+            long current = stripe.get(slot);
+            long balance = current & BALANCE_MASK;
+            if (!AccountStateTable.allowsTransactions(state(current)) || amount > BALANCE_MASK - balance) {
+                return false;
+            }
+            if (stripe.compareAndSet(slot, current, current + amount)) {
+                return true;
+            }
+        }
+    }
+
+    public boolean withdraw(int id, long amount) {
+        if (amount <= 0) {
+            return false;
+        }
+        AtomicLongArray stripe = stripe(id);
+        int slot = slot(id);
+        while (true) {
+            long current = stripe.get(slot);
+            if (!AccountStateTable.allowsTransactions(state(current)) || (current & BALANCE_MASK) < amount) {
+                return false;
+            }
+            if (stripe.compareAndSet(slot, current, current - amount)) {
+                return true;
+            }
+        }
+    }
+
+    public boolean suspend(int id) {
+        return transition(id, AccountStateTable.SUSPEND);
+    }
+
+    public boolean activate(int id) {
+        return transition(id, AccountStateTable.ACTIVATE);
+    }
+
+    public boolean close(int id) {
+        return transition(id, AccountStateTable.CLOSE);
+    }
+
+    private boolean transition(int id, int operation) {
+        AtomicLongArray stripe = stripe(id);
+        int slot = slot(id);
+        while (true) {
+            long current = stripe.get(slot);
+            int state = state(current);
+            int next = AccountStateTable.next(state, operation);
+            if (next == state) {
+                return false;
+            }
+            if (stripe.compareAndSet(slot, current, pack(next, current & BALANCE_MASK))) {
+                return true;
+            }
+        }
+    }
+
+    private AtomicLongArray stripe(int id) {
+        if (id < 0 || id >= size()) {
+            throw new IllegalArgumentException("Unknown account id: " + id);
+        }
+        return stripes[id & stripeMask];
+    }
+
+    private int slot(int id) {
+        return id / (stripeMask + 1);
+    }
+
+    private static int state(long packed) {
+        return (int) (packed >>> STATE_SHIFT);
+    }
+
+    private static long pack(long state, long balance) {
+        return (state << STATE_SHIFT) | balance;
+    }
+}
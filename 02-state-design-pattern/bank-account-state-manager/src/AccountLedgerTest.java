@@ -0,0 +1,100 @@
+import java.util.concurrent.ThreadLocalRandom;
+
+public class AccountLedgerTest {
+    private static final int ACCOUNTS = 1_000_000;
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 2_000_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        AccountLedger ledger = new AccountLedger(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            ledger.open(String.valueOf(i), 10_000);
+        }
+
+        // Every thread moves money between random accounts; the total must never change
+        Thread[] workers = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    int from = random.nextInt(1000);
+                    int to = random.nextInt(1000);
+                    long amount = 1 + random.nextInt(500);
+                    if (ledger.withdraw(from, amount)) {
+                        ledger.deposit(to, amount);
+                    }
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long total = 0;
+        for (int i = 0; i < ledger.size(); i++) {
+            total += ledger.getBalance(i);
+        }
+        check(total == 10_000L * ACCOUNTS, "Total balance preserved: " + total);
+        System.out.println("Throughput: " + (THREADS * OPERATIONS_PER_THREAD * 1_000L / Math.max(1, elapsed / 1_000_000)) + " transfers/s");
+
+        int id = ledger.findId("42");
+        check(ledger.suspend(id), "Active account can be suspended");
+        check(!ledger.deposit(id, 100), "Suspended account rejects deposits");
+        check(ledger.getAccountState(id) instanceof SuspendedState, "State is SuspendedState");
+        check(ledger.activate(id), "Suspended account can be activated");
+        check(ledger.close(id), "Active account can be closed");
+        check(!ledger.withdraw(id, 1), "Closed account rejects withdrawals");
+        check(!ledger.activate(id), "Closed account cannot be activated");
+
+        testOpening();
+    }
+
+    private static void testOpening() throws InterruptedException {
+        AccountLedger ledger = new AccountLedger(1_000);
+        ledger.open("A", 100);
+        boolean rejected = false;
+        try {
+            ledger.open("A", 100);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        check(rejected && ledger.size() == 1 && ledger.open("B", 100) == 1,
+                "Duplicate account number is rejected without using up an id");
+
+        // A deposit made as soon as the number resolves must never be overwritten by the opening
+        int accounts = 500;
+        AccountLedger racing = new AccountLedger(accounts);
+        Thread depositor = new Thread(() -> {
+            for (int i = 0; i < accounts; i++) {
+                int found;
+                while ((found = racing.findId(String.valueOf(i))) < 0) {
+                    Thread.yield();
+                }
+                racing.deposit(found, 50);
+            }
+        });
+        depositor.start();
+        for (int i = 0; i < accounts; i++) {
+            racing.open(String.valueOf(i), 100);
+        }
+        depositor.join();
+        boolean kept = true;
+        for (int i = 0; i < accounts && kept; i++) {
+            kept = racing.getBalance(i) == 150;
+        }
+        check(kept, "Deposits racing an opening are kept");
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
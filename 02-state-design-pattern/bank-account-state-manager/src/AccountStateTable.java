@@ -0,0 +1,64 @@
+public class AccountStateTable {
+    public static final int ACTIVE = 0;
+    public static final int SUSPENDED = 1;
+    public static final int CLOSED = 2;
+
+    public static final int DEPOSIT = 0;
+    public static final int WITHDRAW = 1;
+    public static final int SUSPEND = 2;
+    public static final int ACTIVATE = 3;
+    public static final int CLOSE = 4;
+
+    private static final int OPERATIONS = 5;
+
+    private static final AccountState[] STATES = {
+        ActiveState.INSTANCE, SuspendedState.INSTANCE, ClosedState.INSTANCE
+    };
+
+    // Next state indexed by state * OPERATIONS + operation, mirroring the state classes
+    private static final byte[] NEXT = {
+        // DEPOSIT  WITHDRAW   SUSPEND    ACTIVATE   CLOSE
+        ACTIVE,    ACTIVE,    SUSPENDED, ACTIVE,    CLOSED,  // ACTIVE
+        SUSPENDED, SUSPENDED, SUSPENDED, ACTIVE,    CLOSED,  // SUSPENDED
+        CLOSED,    CLOSED,    CLOSED,    CLOSED,    CLOSED   // CLOSED
+    };
+
+    private AccountStateTable() {
+    }
+
+    public static int next(int state, int operation) {
+        return NEXT[state * OPERATIONS + operation];
+    }
+
+    public static boolean allowsTransactions(int state) {
+        return state == ACTIVE;
+    }
+
+    // Applies a sequence of operations to one account and returns its final state
+    public static int replay(int state, byte[] operations, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            state = NEXT[state * OPERATIONS + operations[i]];
+        }
+        return state;
+    }
+
+    // Applies operations[i] to states[i] in place for a batch of accounts
+    public static void replayAll(byte[] states, byte[] operations) {
+        for (int i = 0; i < states.length; i++) {
+            states[i] = NEXT[states[i] * OPERATIONS + operations[i]];
+        }
+    }
+
+    public static AccountState toState(int state) {
+        return STATES[state];
+    }
+
+    public static int indexOf(AccountState state) {
+        for (int i = 0; i < STATES.length; i++) {
+            if (STATES[i] == state) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown account state: " + state);
+    }
+}
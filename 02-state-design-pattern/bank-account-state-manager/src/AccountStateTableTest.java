@@ -0,0 +1,174 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+public class AccountStateTableTest {
+    private static final int ACCOUNTS = 10_000;
+    private static final int OPERATIONS_PER_ACCOUNT = 200;
+    private static final int OPERATIONS = 5;
+    private static final int BENCHMARK_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        PrintStream console = System.out;
+        boolean singleSteps = true;
+        boolean sequences = true;
+        boolean batches = true;
+        long seed = System.nanoTime();
+        try {
+            // The state classes report every call on the console; keep the test output readable
+            System.setOut(new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+            }));
+
+            for (int state = 0; state < 3; state++) {
+                for (int operation = 0; operation < OPERATIONS; operation++) {
+                    Account account = accountIn(state);
+                    apply(account, operation);
+                    singleSteps &= AccountStateTable.indexOf(account.getAccountState()) == AccountStateTable.next(state, operation);
+                }
+            }
+
+            Random random = new Random(seed);
+            byte[] operations = new byte[ACCOUNTS * OPERATIONS_PER_ACCOUNT];
+            for (int i = 0; i < operations.length; i++) {
+                operations[i] = (byte) random.nextInt(OPERATIONS);
+            }
+            for (int a = 0; a < ACCOUNTS; a++) {
+                int start = random.nextInt(3);
+                Account account = accountIn(start);
+                int offset = a * OPERATIONS_PER_ACCOUNT;
+                for (int i = offset; i < offset + OPERATIONS_PER_ACCOUNT; i++) {
+                    apply(account, operations[i]);
+                }
+                sequences &= AccountStateTable.indexOf(account.getAccountState())
+                        == AccountStateTable.replay(start, operations, offset, OPERATIONS_PER_ACCOUNT);
+            }
+
+            // One operation per account per step, applied to the whole batch at once
+            byte[] states = new byte[ACCOUNTS];
+            Account[] accounts = new Account[ACCOUNTS];
+            for (int a = 0; a < ACCOUNTS; a++) {
+                states[a] = (byte) random.nextInt(3);
+                accounts[a] = accountIn(states[a]);
+            }
+            byte[] step = new byte[ACCOUNTS];
+            for (int s = 0; s < OPERATIONS_PER_ACCOUNT; s++) {
+                for (int a = 0; a < ACCOUNTS; a++) {
+                    step[a] = (byte) random.nextInt(OPERATIONS);
+                    apply(accounts[a], step[a]);
+                }
+                AccountStateTable.replayAll(states, step);
+                for (int a = 0; a < ACCOUNTS; a++) {
+                    batches &= AccountStateTable.toState(states[a]) == accounts[a].getAccountState();
+                }
+            }
+        } finally {
+            System.setOut(console);
+        }
+        check(singleSteps, "Every (state, operation) entry matches the state classes");
+        check(sequences, "replay matches " + ACCOUNTS + " random operation sequences (seed " + seed + ")");
+        check(batches, "replayAll matches the state classes step by step");
+
+        benchmark(console);
+    }
+
+    // The same random operations through the state classes (an interface call on a shared state object
+    // per operation) and through replay. The state classes also update the balance and print every step,
+    // which is part of what the table removes, so output goes to a stream that discards it
+    private static void benchmark(PrintStream console) {
+        Random random = new Random(17);
+        byte[] operations = new byte[ACCOUNTS * OPERATIONS_PER_ACCOUNT];
+        for (int i = 0; i < operations.length; i++) {
+            operations[i] = (byte) random.nextInt(OPERATIONS);
+        }
+        long objectNanos = Long.MAX_VALUE;
+        long tableNanos = Long.MAX_VALUE;
+        long objectBytes = 0;
+        long tableBytes = 0;
+        int sink = 0;
+        try {
+            System.setOut(new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+            }));
+            for (int round = 0; round < BENCHMARK_ROUNDS; round++) {
+                Account[] accounts = new Account[ACCOUNTS];
+                for (int a = 0; a < ACCOUNTS; a++) {
+                    accounts[a] = accountIn(AccountStateTable.ACTIVE);
+                }
+                long allocated = allocatedBytes();
+                long start = System.nanoTime();
+                for (int a = 0; a < ACCOUNTS; a++) {
+                    int offset = a * OPERATIONS_PER_ACCOUNT;
+                    for (int i = offset; i < offset + OPERATIONS_PER_ACCOUNT; i++) {
+                        apply(accounts[a], operations[i]);
+                    }
+                }
+                objectNanos = Math.min(objectNanos, System.nanoTime() - start);
+                objectBytes = allocatedBytes() - allocated;
+                sink += AccountStateTable.indexOf(accounts[ACCOUNTS - 1].getAccountState());
+
+                allocated = allocatedBytes();
+                start = System.nanoTime();
+                for (int a = 0; a < ACCOUNTS; a++) {
+                    sink += AccountStateTable.replay(AccountStateTable.ACTIVE, operations, a * OPERATIONS_PER_ACCOUNT, OPERATIONS_PER_ACCOUNT);
+                }
+                tableNanos = Math.min(tableNanos, System.nanoTime() - start);
+                tableBytes = allocatedBytes() - allocated;
+            }
+        } finally {
+            System.setOut(console);
+        }
+        System.out.printf("State classes: %.1f ns/operation, %d bytes allocated/operation%n",
+                (double) objectNanos / operations.length, objectBytes / operations.length);
+        System.out.printf("State table:   %.1f ns/operation, %d bytes allocated/operation (%s)%n",
+                (double) tableNanos / operations.length, tableBytes / operations.length, sink >= 0 ? "ok" : "?");
+    }
+
+    // Bytes allocated by this thread so far, or 0 where the JVM does not report it
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static Account accountIn(int state) {
+        Account account = new Account("ACC", 1_000.0);
+        account.setAccountState(AccountStateTable.toState(state));
+        return account;
+    }
+
+    private static void apply(Account account, int operation) {
+        switch (operation) {
+            case AccountStateTable.DEPOSIT:
+                account.deposit(10.0);
+                break;
+            case AccountStateTable.WITHDRAW:
+                account.withdraw(10.0);
+                break;
+            case AccountStateTable.SUSPEND:
+                account.suspend();
+                break;
+            case AccountStateTable.ACTIVATE:
+                account.activate();
+                break;
+            default:
+                account.close();
+                break;
+        }
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
@@ -1,4 +1,6 @@
 public class ActiveState implements AccountState {
+    public static final ActiveState INSTANCE = new ActiveState();
+
     @Override
     public void deposit(Account account, double amount) {
         account.setBalance(account.getBalance() + amount);
@@ -17,7 +19,7 @@ public class ActiveState implements AccountState {
 
     @Override
     public void suspend(Account account) {
-        account.setAccountState(new SuspendedState());
+        account.setAccountState(SuspendedState.INSTANCE);
         System.out.println("Account is suspended!");
     }
 
@@ -28,7 +30,7 @@ public class ActiveState implements AccountState {
 
     @Override
     public void close(Account account) {
-        account.setAccountState(new ClosedState());
+        account.setAccountState(ClosedState.INSTANCE);
         System.out.println("Account is closed!");
     }
 }
@@ -0,0 +1,63 @@
+public class BatchSummary {
+    private long processed;
+    private long skipped;
+    private long affected;
+    // Money the job moved in or out of accounts; jobs that only change state leave it at zero
+    private long movedCents;
+
+    public void record(long cents) {
+        processed++;
+        if (cents >= 0) {
+            affected++;
+            movedCents += cents;
+        }
+    }
+
+    public void skip() {
+        skipped++;
+    }
+
+    public void merge(BatchSummary other) {
+        processed += other.processed;
+        skipped += other.skipped;
+        affected += other.affected;
+        movedCents += other.movedCents;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public long getAffected() {
+        return affected;
+    }
+
+    public long getMovedCents() {
+        return movedCents;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof BatchSummary)) {
+            return false;
+        }
+        BatchSummary other = (BatchSummary) o;
+        return processed == other.processed && skipped == other.skipped
+                && affected == other.affected && movedCents == other.movedCents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(processed) * 31 + Long.hashCode(movedCents);
+    }
+
+    @Override
+    public String toString() {
+        return "Processed: " + processed + ", Skipped: " + skipped + ", Affected: " + affected
+                + ", Moved: " + (movedCents / 100) + "." + String.format("%02d", Math.abs(movedCents % 100));
+    }
+}
@@ -1,4 +1,6 @@
 public class ClosedState implements AccountState {
+    public static final ClosedState INSTANCE = new ClosedState();
+
     @Override
     public void deposit(Account account, double amount) {
         System.out.println("You cannot deposit on a closed account.\n" + account.toString());
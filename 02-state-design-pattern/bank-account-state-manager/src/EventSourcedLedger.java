@@ -0,0 +1,103 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.function.BooleanSupplier;
+
+public class EventSourcedLedger implements AutoCloseable {
+    private static final String SNAPSHOT_FILE = "ledger.snapshot";
+    private static final int LOCK_STRIPES = 1024;
+
+    private final AccountLedger ledger;
+    private final TransactionLog log;
+    private final File snapshotFile;
+    // Keeps each account's events in the log in the same order they hit the ledger
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    EventSourcedLedger(AccountLedger ledger, TransactionLog log, File snapshotFile) {
+        this.ledger = ledger;
+        this.log = log;
+        this.snapshotFile = snapshotFile;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    // Rebuilds the book from the latest snapshot plus the log written after it
+    public static EventSourcedLedger open(File directory, int capacity) throws IOException {
+        AccountLedger ledger = new AccountLedger(capacity);
+        TransactionLog log = new TransactionLog(new File(directory, "log"));
+        File snapshotFile = new File(directory, SNAPSHOT_FILE);
+        long fromSequence = LedgerSnapshot.read(ledger, snapshotFile);
+        // Events carry the resulting account word, so replaying one twice is harmless
+        log.replay(fromSequence, event -> ledger.restore(event.getAccountId(), event.getAccountNumber(), event.getWord()));
+        return new EventSourcedLedger(ledger, log, snapshotFile);
+    }
+
+    public AccountLedger getLedger() {
+        return ledger;
+    }
+
+    public int open(String accountNumber, long balance) throws IOException {
+        int id = ledger.open(accountNumber, balance);
+        synchronized (lock(id)) {
+            try {
+                log.append(AccountEvent.OPEN, id, balance, ledger.getWord(id), accountNumber);
+            } catch (IOException | RuntimeException e) {
+                ledger.discard(id, accountNumber);
+                throw e;
+            }
+        }
+        return id;
+    }
+
+    public boolean deposit(int id, long amount) throws IOException {
+        return apply(AccountEvent.DEPOSIT, id, amount, () -> ledger.deposit(id, amount));
+    }
+
+    public boolean withdraw(int id, long amount) throws IOException {
+        return apply(AccountEvent.WITHDRAW, id, amount, () -> ledger.withdraw(id, amount));
+    }
+
+    public boolean suspend(int id) throws IOException {
+        return apply(AccountEvent.SUSPEND, id, 0, () -> ledger.suspend(id));
+    }
+
+    public boolean activate(int id) throws IOException {
+        return apply(AccountEvent.ACTIVATE, id, 0, () -> ledger.activate(id));
+    }
+
+    public boolean close(int id) throws IOException {
+        return apply(AccountEvent.CLOSE, id, 0, () -> ledger.close(id));
+    }
+
+    public void snapshot() throws IOException {
+        log.flush();
+        LedgerSnapshot.write(ledger, log.getNextSequence(), snapshotFile);
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+
+    // The log records the account's word after the change, so the change is made first and
+    // undone if the append fails; the stripe lock keeps other logged changes to the account out
+    private boolean apply(byte type, int id, long amount, BooleanSupplier change) throws IOException {
+        synchronized (lock(id)) {
+            long before = ledger.getWord(id);
+            if (!change.getAsBoolean()) {
+                return false;
+            }
+            try {
+                log.append(type, id, amount, ledger.getWord(id), null);
+            } catch (IOException | RuntimeException e) {
+                ledger.restore(id, null, before);
+                throw e;
+            }
+            return true;
+        }
+    }
+
+    private Object lock(int id) {
+        return locks[id & (LOCK_STRIPES - 1)];
+    }
+}
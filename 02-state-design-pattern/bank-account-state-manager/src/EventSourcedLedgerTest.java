@@ -0,0 +1,195 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class EventSourcedLedgerTest {
+    private static final int ACCOUNTS = 1_000_000;
+    private static final int THREADS = 4;
+    private static final int OPERATIONS_PER_THREAD = 500_000;
+    // Size of a logged event without an account number: length, crc, sequence, type, id, amount, word
+    private static final int RECORD = 4 + 4 + 8 + 1 + 4 + 8 + 8;
+
+    public static void main(String[] args) throws Exception {
+        File directory = new File(System.getProperty("java.io.tmpdir"), "ledger-test-" + System.nanoTime());
+        long[] expected = new long[ACCOUNTS];
+        try (EventSourcedLedger book = EventSourcedLedger.open(directory, ACCOUNTS)) {
+            for (int i = 0; i < ACCOUNTS; i++) {
+                book.open("ACC-" + i, 10_000);
+            }
+            // Half the traffic lands before the snapshot, half races it and the rest comes after
+            runTraffic(book);
+            Thread snapshot = new Thread(() -> {
+                try {
+                    book.snapshot();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            snapshot.start();
+            runTraffic(book);
+            snapshot.join();
+            runTraffic(book);
+            for (int i = 0; i < ACCOUNTS; i++) {
+                expected[i] = book.getLedger().getWord(i);
+            }
+        }
+
+        long start = System.nanoTime();
+        try (EventSourcedLedger restored = EventSourcedLedger.open(directory, ACCOUNTS)) {
+            long elapsed = System.nanoTime() - start;
+            AccountLedger ledger = restored.getLedger();
+            boolean same = ledger.size() == ACCOUNTS;
+            for (int i = 0; i < ACCOUNTS && same; i++) {
+                same = ledger.getWord(i) == expected[i] && ledger.findId("ACC-" + i) == i;
+            }
+            check(same, "Snapshot plus replay restores all " + ACCOUNTS + " accounts");
+            System.out.println("Restore time: " + elapsed / 1_000_000 + " ms");
+        }
+
+        // A failed append must leave the ledger as it was, so memory never runs ahead of the log
+        File failing = new File(directory, "failing");
+        FailingLog log = new FailingLog(new File(failing, "log"));
+        try (EventSourcedLedger book = new EventSourcedLedger(new AccountLedger(16), log, new File(failing, "snapshot"))) {
+            int id = book.open("ACC-1", 5_000);
+            log.failing = true;
+            check(throwsIOException(() -> book.deposit(id, 1_000)) && book.getLedger().getBalance(id) == 5_000,
+                    "Deposit that cannot be logged is rolled back");
+            check(throwsIOException(() -> book.suspend(id)) && book.getLedger().getAccountState(id) instanceof ActiveState,
+                    "Suspension that cannot be logged is rolled back");
+            check(throwsIOException(() -> book.open("ACC-2", 100)) && book.getLedger().findId("ACC-2") == -1,
+                    "Opening that cannot be logged is discarded");
+            log.failing = false;
+            check(book.withdraw(id, 500) && book.getLedger().getBalance(id) == 4_500, "Ledger keeps working once the log recovers");
+        }
+        try (EventSourcedLedger restored = EventSourcedLedger.open(failing, 16)) {
+            AccountLedger ledger = restored.getLedger();
+            check(ledger.getBalance(ledger.findId("ACC-1")) == 4_500 && ledger.findId("ACC-2") == -1,
+                    "Replay matches the ledger after rolled-back changes");
+        }
+
+        testTornRecords(new File(directory, "torn"));
+        delete(directory);
+    }
+
+    // A crash mid-append must end the log at the last whole record instead of replaying garbage
+    private static void testTornRecords(File directory) throws IOException {
+        try (TransactionLog log = new TransactionLog(directory, 1024 * 1024)) {
+            for (int i = 1; i <= 3; i++) {
+                log.append(AccountEvent.DEPOSIT, 7, 100, 100 * i, null);
+            }
+        }
+        File segment = directory.listFiles()[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            // The length of a fourth record reached the file but its body did not
+            file.seek(3 * RECORD);
+            file.writeInt(RECORD);
+        }
+        check(replay(directory).size() == 3, "Record with a length but no body is not replayed");
+
+        try (TransactionLog log = new TransactionLog(directory, 1024 * 1024)) {
+            check(log.getNextSequence() == 3, "Reopened log resumes after the last whole record");
+            log.append(AccountEvent.WITHDRAW, 7, 50, 250, null);
+        }
+        List<AccountEvent> events = replay(directory);
+        check(events.size() == 4 && events.get(3).getType() == AccountEvent.WITHDRAW && events.get(3).getWord() == 250,
+                "Append over a torn record replays");
+
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            // Flip one bit in the second record's amount
+            file.seek(RECORD + 4 + 4 + 8 + 1 + 4);
+            int b = file.read();
+            file.seek(RECORD + 4 + 4 + 8 + 1 + 4);
+            file.write(b ^ 1);
+        }
+        check(replay(directory).size() == 1, "Replay stops at the first corrupt record");
+    }
+
+    private static List<AccountEvent> replay(File directory) throws IOException {
+        List<AccountEvent> events = new ArrayList<>();
+        try (TransactionLog log = new TransactionLog(directory, 1024 * 1024)) {
+            log.replay(0, events::add);
+        }
+        return events;
+    }
+
+    private static void runTraffic(EventSourcedLedger book) throws InterruptedException {
+        Thread[] workers = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        int id = random.nextInt(ACCOUNTS);
+                        int operation = random.nextInt(20);
+                        if (operation == 0) {
+                            book.suspend(id);
+                        } else if (operation == 1) {
+                            book.activate(id);
+                        } else if (operation == 2 && random.nextInt(50) == 0) {
+                            book.close(id);
+                        } else if (operation % 2 == 0) {
+                            book.deposit(id, 1 + random.nextInt(1_000));
+                        } else {
+                            book.withdraw(id, 1 + random.nextInt(1_000));
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private interface LoggedChange {
+        void run() throws IOException;
+    }
+
+    private static boolean throwsIOException(LoggedChange change) {
+        try {
+            change.run();
+            return false;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private static final class FailingLog extends TransactionLog {
+        volatile boolean failing;
+
+        FailingLog(File directory) throws IOException {
+            super(directory, 1024 * 1024);
+        }
+
+        @Override
+        public synchronized long append(byte type, int accountId, long amount, long word, String accountNumber) throws IOException {
+            if (failing) {
+                throw new IOException("Disk full");
+            }
+            return super.append(type, accountId, amount, word, accountNumber);
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
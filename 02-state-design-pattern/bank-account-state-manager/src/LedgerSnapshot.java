@@ -0,0 +1,58 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+public class LedgerSnapshot {
+    private static final int END = -1;
+
+    private LedgerSnapshot() {
+    }
+
+    // Copies accounts one by one while deposits and withdrawals keep running; every event
+    // from the recorded sequence onward is replayed on recovery, which settles any account
+    // that changed while it was being copied
+    public static void write(AccountLedger ledger, long fromSequence, File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeLong(fromSequence);
+            try {
+                ledger.forEachAccount((accountNumber, id) -> {
+                    try {
+                        out.writeInt(id);
+                        out.writeUTF(accountNumber);
+                        out.writeLong(ledger.getWord(id));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.writeInt(END);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Loads the snapshot into the ledger and returns the first log sequence to replay
+    public static long read(AccountLedger ledger, File file) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            long fromSequence = in.readLong();
+            for (int id = in.readInt(); id != END; id = in.readInt()) {
+                String accountNumber = in.readUTF();
+                ledger.restore(id, accountNumber, in.readLong());
+            }
+            return fromSequence;
+        }
+    }
+}
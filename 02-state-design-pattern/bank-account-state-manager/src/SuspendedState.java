@@ -1,4 +1,6 @@
 public class SuspendedState implements AccountState {
+    public static final SuspendedState INSTANCE = new SuspendedState();
+
     @Override
     public void deposit(Account account, double amount) {
         System.out.println("You cannot deposit on a suspended account.\n" + account.toString());
@@ -16,13 +18,13 @@ public class SuspendedState implements AccountState {
 
     @Override
     public void activate(Account account) {
-        account.setAccountState(new ActiveState());
+        account.setAccountState(ActiveState.INSTANCE);
         System.out.println("Account is activated!");
     }
 
     @Override
     public void close(Account account) {
-        account.setAccountState(new ClosedState());
+        account.setAccountState(ClosedState.INSTANCE);
         System.out.println("Account is closed!");
     }
 }
@@ -0,0 +1,173 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+public class TransactionLog implements AutoCloseable {
+    // Record layout: [length][crc32][sequence][type][account id][amount][word][account number bytes].
+    // The checksum covers everything after it, and the length is written last, so a record torn by a
+    // crash either has no length or fails its checksum and marks the end of the log.
+    private static final int RECORD_HEADER = 4 + 4 + 8 + 1 + 4 + 8 + 8;
+    private static final int CHECKSUM_OFFSET = 4;
+    private static final int BODY_OFFSET = 8;
+    private static final String SUFFIX = ".log";
+
+    private final File directory;
+    private final int segmentSize;
+
+    private RandomAccessFile segmentFile;
+    private MappedByteBuffer segment;
+    private long nextSequence;
+
+    public TransactionLog(File directory, int segmentSize) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create log directory: " + directory);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        File[] segments = segments();
+        if (segments.length == 0) {
+            openSegment(0);
+        } else {
+            File last = segments[segments.length - 1];
+            segmentFile = new RandomAccessFile(last, "rw");
+            segment = segmentFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            nextSequence = firstSequence(last);
+            int position = 0;
+            int length;
+            while ((length = recordLength(segment, position, nextSequence)) > 0) {
+                position += length;
+                nextSequence++;
+            }
+            // Appends overwrite whatever a crash left after the last whole record
+            segment.position(position);
+        }
+    }
+
+    public TransactionLog(File directory) throws IOException {
+        this(directory, 64 * 1024 * 1024);
+    }
+
+    public synchronized long getNextSequence() {
+        return nextSequence;
+    }
+
+    public synchronized long append(byte type, int accountId, long amount, long word, String accountNumber) throws IOException {
+        byte[] number = accountNumber == null ? new byte[0] : accountNumber.getBytes(StandardCharsets.UTF_8);
+        int length = RECORD_HEADER + number.length;
+        if (segment.remaining() < length) {
+            segment.force();
+            segmentFile.close();
+            openSegment(nextSequence);
+        }
+        int start = segment.position();
+        segment.position(start + BODY_OFFSET);
+        segment.putLong(nextSequence);
+        segment.put(type);
+        segment.putInt(accountId);
+        segment.putLong(amount);
+        segment.putLong(word);
+        segment.put(number);
+        segment.putInt(start + CHECKSUM_OFFSET, checksum(segment, start, length));
+        // Publishing the length commits the record
+        segment.putInt(start, length);
+        return nextSequence++;
+    }
+
+    public synchronized void flush() {
+        segment.force();
+    }
+
+    // Replays every event with a sequence at or after fromSequence, oldest first, stopping at the
+    // first torn or corrupt record since nothing after it can be trusted
+    public void replay(long fromSequence, Consumer<AccountEvent> handler) throws IOException {
+        File[] segments = segments();
+        for (int i = 0; i < segments.length; i++) {
+            if (i + 1 < segments.length && firstSequence(segments[i + 1]) <= fromSequence) {
+                continue;
+            }
+            long sequence = firstSequence(segments[i]);
+            try (RandomAccessFile file = new RandomAccessFile(segments[i], "r")) {
+                MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+                int position = 0;
+                int length;
+                while ((length = recordLength(buffer, position, sequence)) > 0) {
+                    if (sequence >= fromSequence) {
+                        buffer.position(position + BODY_OFFSET + 8);
+                        byte type = buffer.get();
+                        int accountId = buffer.getInt();
+                        long amount = buffer.getLong();
+                        long word = buffer.getLong();
+                        byte[] number = new byte[length - RECORD_HEADER];
+                        buffer.get(number);
+                        String accountNumber = number.length == 0 ? null : new String(number, StandardCharsets.UTF_8);
+                        handler.accept(new AccountEvent(sequence, type, accountId, amount, word, accountNumber));
+                    }
+                    position += length;
+                    sequence++;
+                }
+            }
+            if (i + 1 < segments.length && sequence != firstSequence(segments[i + 1])) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        segment.force();
+        segmentFile.close();
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        File file = new File(directory, String.format("%020d", firstSequence) + SUFFIX);
+        segmentFile = new RandomAccessFile(file, "rw");
+        segment = segmentFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        nextSequence = firstSequence;
+    }
+
+    // Returns the length of the whole, valid record at position, or 0 at the end of the log
+    private static int recordLength(ByteBuffer buffer, int position, long sequence) {
+        if (buffer.limit() - position < RECORD_HEADER) {
+            return 0;
+        }
+        int length = buffer.getInt(position);
+        if (length < RECORD_HEADER || length > buffer.limit() - position) {
+            return 0;
+        }
+        if (buffer.getLong(position + BODY_OFFSET) != sequence || !AccountEvent.isKnownType(buffer.get(position + BODY_OFFSET + 8))) {
+            return 0;
+        }
+        return buffer.getInt(position + CHECKSUM_OFFSET) == checksum(buffer, position, length) ? length : 0;
+    }
+
+    private static int checksum(ByteBuffer buffer, int position, int length) {
+        ByteBuffer body = buffer.duplicate();
+        body.limit(position + length);
+        body.position(position + BODY_OFFSET);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private File[] segments() {
+        File[] segments = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (segments == null) {
+            return new File[0];
+        }
+        Arrays.sort(segments);
+        return segments;
+    }
+
+    private static long firstSequence(File segment) {
+        String name = segment.getName();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+}
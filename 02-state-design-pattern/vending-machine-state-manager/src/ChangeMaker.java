@@ -0,0 +1,182 @@
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ChangeMaker {
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final Executor BACKGROUND = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "change-table-rebuilder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final CoinTubes tubes;
+    private final int maxChange;
+    private final int lowWatermark;
+    private final Executor rebuilder;
+
+    // Optimal coin count and last coin for every amount with unlimited coins, built once
+    private final int[] optimalCoins;
+    private final int[] optimalLast;
+    // Coins of each tube used for every amount, limited to the coins actually in the tubes
+    // and replaced in the background
+    private volatile int[][] boundedTake;
+    private volatile boolean exactChangeOnly;
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+
+    public ChangeMaker(CoinTubes tubes, int maxChange, int lowWatermark, Executor rebuilder) {
+        this.tubes = tubes;
+        this.maxChange = maxChange;
+        this.lowWatermark = lowWatermark;
+        this.rebuilder = rebuilder;
+        this.optimalCoins = new int[maxChange + 1];
+        this.optimalLast = new int[maxChange + 1];
+        buildOptimal();
+        rebuild();
+    }
+
+    public ChangeMaker(CoinTubes tubes, int maxChange) {
+        this(tubes, maxChange, 5, BACKGROUND);
+    }
+
+    public boolean isExactChangeOnly() {
+        return exactChangeOnly;
+    }
+
+    public CoinTubes getTubes() {
+        return tubes;
+    }
+
+    public void acceptCoin(int tube) {
+        tubes.add(tube, 1);
+        if (exactChangeOnly) {
+            scheduleRebuild();
+        }
+    }
+
+    // Fills coins with the number of each denomination to pay out and removes them from the
+    // tubes; returns false, leaving the tubes untouched, if the amount cannot be paid
+    public boolean makeChange(int amount, int[] coins) {
+        if (amount < 0 || amount > maxChange) {
+            return false;
+        }
+        boolean paid = walk(optimalLast, amount, coins) && tubes.remove(coins);
+        if (!paid) {
+            int[][] bounded = boundedTake;
+            paid = bounded != null && walkBounded(bounded, amount, coins) && tubes.remove(coins);
+        }
+        if (paid && runningLow()) {
+            scheduleRebuild();
+        }
+        return paid;
+    }
+
+    private boolean walk(int[] last, int amount, int[] coins) {
+        Arrays.fill(coins, 0);
+        while (amount > 0) {
+            int tube = last[amount];
+            if (tube < 0) {
+                return false;
+            }
+            coins[tube]++;
+            amount -= tubes.getDenomination(tube);
+        }
+        return true;
+    }
+
+    private boolean walkBounded(int[][] take, int amount, int[] coins) {
+        for (int tube = take.length - 1; tube >= 0; tube--) {
+            coins[tube] = take[tube][amount];
+            amount -= coins[tube] * tubes.getDenomination(tube);
+        }
+        return amount == 0;
+    }
+
+    private boolean runningLow() {
+        for (int i = 0; i < tubes.size(); i++) {
+            if (tubes.getCount(i) < lowWatermark) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                rebuildPending.set(false);
+                rebuild();
+            });
+        }
+    }
+
+    private void buildOptimal() {
+        Arrays.fill(optimalCoins, UNREACHABLE);
+        Arrays.fill(optimalLast, -1);
+        optimalCoins[0] = 0;
+        for (int amount = 1; amount <= maxChange; amount++) {
+            for (int tube = 0; tube < tubes.size(); tube++) {
+                int rest = amount - tubes.getDenomination(tube);
+                if (rest >= 0 && optimalCoins[rest] != UNREACHABLE && optimalCoins[rest] + 1 < optimalCoins[amount]) {
+                    optimalCoins[amount] = optimalCoins[rest] + 1;
+                    optimalLast[amount] = tube;
+                }
+            }
+        }
+    }
+
+    // Bounded change table for the current tube contents, one tube at a time: with k coins of
+    // denomination d, best[a] = min over k <= count of previous[a - k*d] + k. Amounts with the same
+    // remainder mod d form a sequence, so a sliding-window minimum gives each entry in O(1).
+    // take[tube][amount] records k, and the machine switches to exact change only when some
+    // amount it could owe a customer can no longer be paid
+    private void rebuild() {
+        int[] counts = tubes.snapshot();
+        int[] best = new int[maxChange + 1];
+        int[] next = new int[maxChange + 1];
+        int[] window = new int[maxChange + 1];
+        int[][] take = new int[counts.length][maxChange + 1];
+        Arrays.fill(best, UNREACHABLE);
+        best[0] = 0;
+        for (int tube = 0; tube < counts.length; tube++) {
+            int denomination = tubes.getDenomination(tube);
+            for (int remainder = 0; remainder < denomination && remainder <= maxChange; remainder++) {
+                int head = 0;
+                int tail = 0;
+                for (int j = 0, amount = remainder; amount <= maxChange; j++, amount += denomination) {
+                    if (best[amount] != UNREACHABLE) {
+                        int value = best[amount] - j;
+                        while (tail > head && best[remainder + window[tail - 1] * denomination] - window[tail - 1] >= value) {
+                            tail--;
+                        }
+                        window[tail++] = j;
+                    }
+                    while (tail > head && window[head] < j - counts[tube]) {
+                        head++;
+                    }
+                    if (tail > head) {
+                        int from = window[head];
+                        next[amount] = best[remainder + from * denomination] + (j - from);
+                        take[tube][amount] = j - from;
+                    } else {
+                        next[amount] = UNREACHABLE;
+                    }
+                }
+            }
+            int[] swap = best;
+            best = next;
+            next = swap;
+        }
+        boolean exact = false;
+        int step = tubes.getDenomination(0);
+        for (int amount = step; amount <= maxChange; amount += step) {
+            if (optimalCoins[amount] != UNREACHABLE && best[amount] == UNREACHABLE) {
+                exact = true;
+                break;
+            }
+        }
+        boundedTake = take;
+        exactChangeOnly = exact;
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.Arrays;
+
+public class ChangeMakerTest {
+    private static final int MAX_CHANGE = 120;
+    private static final int MAX_COUNT = 3;
+
+    public static void main(String[] args) {
+        int[][] denominationSets = { {1, 5, 10, 25}, {5, 10, 20, 50}, {1, 3, 4}, {2, 5, 7}, {10, 25} };
+        int configurations = 0;
+        int amountsChecked = 0;
+        for (int[] denominations : denominationSets) {
+            int[] counts = new int[denominations.length];
+            do {
+                checkConfiguration(denominations, counts);
+                configurations++;
+                amountsChecked += MAX_CHANGE + 1;
+            } while (nextCounts(counts));
+        }
+        System.out.println("PASSED: makeChange matches brute force for " + configurations
+                + " tube configurations, " + amountsChecked + " amounts");
+
+        ChangeMaker changeMaker = new ChangeMaker(new CoinTubes(new int[] {1, 5, 10, 25}, new int[] {0, 3, 1, 2}),
+                MAX_CHANGE, 0, Runnable::run);
+        int[] coins = new int[4];
+        check(changeMaker.makeChange(20, coins) && coins[1] == 2 && coins[2] == 1, "20 is paid as 10+5+5");
+        check(changeMaker.makeChange(25, coins) && coins[3] == 1, "25 is paid from the quarter tube");
+        check(!changeMaker.makeChange(45, coins), "45 is refused once the tubes no longer hold it");
+    }
+
+    // Every amount must be paid exactly when brute force finds a combination, with the fewest coins
+    private static void checkConfiguration(int[] denominations, int[] counts) {
+        CoinTubes tubes = new CoinTubes(denominations, counts);
+        ChangeMaker changeMaker = new ChangeMaker(tubes, MAX_CHANGE, 0, Runnable::run);
+        int[] coins = new int[denominations.length];
+        boolean[] unlimited = new boolean[MAX_CHANGE + 1];
+        unlimited[0] = true;
+        for (int amount = 1; amount <= MAX_CHANGE; amount++) {
+            for (int denomination : denominations) {
+                unlimited[amount] |= amount >= denomination && unlimited[amount - denomination];
+            }
+        }
+        boolean expectExact = false;
+        for (int amount = 0; amount <= MAX_CHANGE; amount++) {
+            int fewest = bruteForce(denominations, counts, amount);
+            boolean paid = changeMaker.makeChange(amount, coins);
+            String where = "amount " + amount + " with counts " + Arrays.toString(counts)
+                    + " of " + Arrays.toString(denominations);
+            if (fewest < 0) {
+                expect(!paid, "Unpayable " + where + " is refused");
+                if (amount % denominations[0] == 0 && unlimited[amount]) {
+                    expectExact = true;
+                }
+                continue;
+            }
+            expect(paid, "Payable " + where + " is paid");
+            int value = 0;
+            int used = 0;
+            for (int i = 0; i < coins.length; i++) {
+                expect(coins[i] <= counts[i], "Coins for " + where + " come from the tubes");
+                value += coins[i] * denominations[i];
+                used += coins[i];
+            }
+            expect(value == amount, "Coins for " + where + " add up");
+            expect(used == fewest, "Coins for " + where + " are the fewest possible");
+            // Put the coins back so the table built for these counts stays valid
+            for (int i = 0; i < coins.length; i++) {
+                tubes.add(i, coins[i]);
+            }
+        }
+        expect(changeMaker.isExactChangeOnly() == expectExact, "Exact change only flag for counts "
+                + Arrays.toString(counts) + " of " + Arrays.toString(denominations));
+    }
+
+    // Fewest coins for the amount by trying every combination of the loaded coins, or -1
+    private static int bruteForce(int[] denominations, int[] counts, int amount) {
+        return bruteForce(denominations, counts, 0, amount);
+    }
+
+    private static int bruteForce(int[] denominations, int[] counts, int tube, int amount) {
+        if (tube == denominations.length) {
+            return amount == 0 ? 0 : -1;
+        }
+        int limit = Math.min(counts[tube], amount / denominations[tube]);
+        int fewest = -1;
+        for (int k = 0; k <= limit; k++) {
+            int rest = bruteForce(denominations, counts, tube + 1, amount - k * denominations[tube]);
+            if (rest >= 0 && (fewest < 0 || rest + k < fewest)) {
+                fewest = rest + k;
+            }
+        }
+        return fewest;
+    }
+
+    private static boolean nextCounts(int[] counts) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] < MAX_COUNT) {
+                counts[i]++;
+                return true;
+            }
+            counts[i] = 0;
+        }
+        return false;
+    }
+
+    private static void expect(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
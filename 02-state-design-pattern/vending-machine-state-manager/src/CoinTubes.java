@@ -0,0 +1,63 @@
+import java.util.Arrays;
+
+public class CoinTubes {
+    private final int[] denominations;
+    private final int[] counts;
+
+    // Denominations in ascending order with the number of coins loaded in each tube
+    public CoinTubes(int[] denominations, int[] counts) {
+        if (denominations.length != counts.length) {
+            throw new IllegalArgumentException("Every denomination needs a tube count");
+        }
+        for (int i = 1; i < denominations.length; i++) {
+            if (denominations[i] <= denominations[i - 1]) {
+                throw new IllegalArgumentException("Denominations must be ascending");
+            }
+        }
+        this.denominations = denominations.clone();
+        this.counts = counts.clone();
+    }
+
+    public int size() {
+        return denominations.length;
+    }
+
+    public int[] getDenominations() {
+        return denominations.clone();
+    }
+
+    public int getDenomination(int tube) {
+        return denominations[tube];
+    }
+
+    public synchronized int getCount(int tube) {
+        return counts[tube];
+    }
+
+    public synchronized int[] snapshot() {
+        return counts.clone();
+    }
+
+    // Returns the tube holding this denomination, or -1 if the machine does not take it
+    public int tubeOf(int denomination) {
+        int tube = Arrays.binarySearch(denominations, denomination);
+        return tube < 0 ? -1 : tube;
+    }
+
+    public synchronized void add(int tube, int coins) {
+        counts[tube] += coins;
+    }
+
+    // Takes the given coins out of the tubes if they are all there
+    public synchronized boolean remove(int[] coins) {
+        for (int i = 0; i < counts.length; i++) {
+            if (coins[i] > counts[i]) {
+                return false;
+            }
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] -= coins[i];
+        }
+        return true;
+    }
+}
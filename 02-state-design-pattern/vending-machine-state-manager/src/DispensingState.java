@@ -1,4 +1,6 @@
 public class DispensingState implements VendingMachineState {
+    public static final DispensingState INSTANCE = new DispensingState();
+
     @Override
     public void selectItem(VendingMachine machine, String item) {
         System.out.println("Currently dispensing an item. Please wait...");
@@ -11,15 +13,19 @@ public class DispensingState implements VendingMachineState {
 
     @Override
     public void dispenseItem(VendingMachine machine) {
-        machine.reduceltemInventory();
-        machine.setBalance(machine.getBalance() - machine.getItemPrice());
-        System.out.println("Your item is ready! Switching back to Idle Mode...");
-        machine.setState(new IdleState());
+        if (machine.completeSale()) {
+            System.out.println("Your item is ready! Switching back to Idle Mode...");
+        } else {
+            System.out.println("Sorry, this item just sold out. Remaining credit: " + machine.getBalance()
+                    + ". Switching back to Idle Mode...");
+        }
+        machine.setState(IdleState.INSTANCE);
     }
 
     @Override
     public void setOutOfOrder(VendingMachine machine) {
         System.out.println("The vending machine is now out of service.");
-        machine.setState(new OutOfOrderState());
+        machine.emit(TelemetryRing.OUT_OF_ORDER, 0);
+        machine.setState(OutOfOrderState.INSTANCE);
     }
 }
\ No newline at end of file
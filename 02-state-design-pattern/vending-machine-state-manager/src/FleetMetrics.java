@@ -0,0 +1,53 @@
+import java.util.concurrent.atomic.LongAdder;
+
+public class FleetMetrics {
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final long startedAt = System.nanoTime();
+
+    public void recordProcessed(long latencyNanos) {
+        processed.increment();
+        latency.record(latencyNanos);
+    }
+
+    public void recordRejected() {
+        rejected.increment();
+    }
+
+    public void recordFailed() {
+        failed.increment();
+    }
+
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public double getThroughput() {
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        return seconds == 0 ? 0 : getProcessed() / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return "Commands processed: " + getProcessed()
+                + "\nCommands rejected: " + getRejected()
+                + "\nCommands failed: " + getFailed()
+                + "\nThroughput: " + Math.round(getThroughput()) + " commands/s"
+                + "\nLatency p50: " + latency.percentile(50) + " ns"
+                + "\nLatency p99: " + latency.percentile(99) + " ns";
+    }
+}
@@ -1,10 +1,23 @@
 public class IdleState implements VendingMachineState {
+    public static final IdleState INSTANCE = new IdleState();
+
     @Override
     public void selectItem(VendingMachine machine, String item) {
+        int slot = machine.findSlot(item);
+        if (slot < 0) {
+            System.out.println("Item not available: " + item);
+            return;
+        }
+        if (machine.getSlotInventory().getStock(slot) == 0) {
+            System.out.println("Sorry, " + item + " is sold out.");
+            return;
+        }
         System.out.println("Item selected: " + item);
         machine.setSelectedItem(item);
+        machine.setSelectedSlot(slot);
+        machine.emit(TelemetryRing.SELECT, slot);
         machine.setItemSelected(true);
-        machine.setState(new ItemSelectedState());
+        machine.setState(ItemSelectedState.INSTANCE);
     }
 
     @Override
@@ -22,6 +35,7 @@ public class IdleState implements VendingMachineState {
     @Override
     public void setOutOfOrder(VendingMachine machine) {
         System.out.println("The vending machine is now out of service.");
-        machine.setState(new OutOfOrderState());
+        machine.emit(TelemetryRing.OUT_OF_ORDER, 0);
+        machine.setState(OutOfOrderState.INSTANCE);
     }
 }
\ No newline at end of file
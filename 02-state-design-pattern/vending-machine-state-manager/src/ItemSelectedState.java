@@ -1,4 +1,6 @@
 public class ItemSelectedState implements VendingMachineState {
+    public static final ItemSelectedState INSTANCE = new ItemSelectedState();
+
     @Override
     public void selectItem(VendingMachine machine, String item) {
         System.out.println("Item chosen. Please insert the required coins.");
@@ -6,12 +8,14 @@ public class ItemSelectedState implements VendingMachineState {
 
     @Override
     public void insertCoin(VendingMachine machine, int amount) {
-        machine.addBalance(amount);
+        if (!machine.acceptCoin(amount)) {
+            return;
+        }
         System.out.println("Coin accepted. Current balance: " + machine.getBalance());
         
             if (machine.getBalance() >= machine.getItemPrice()) {
                 System.out.println("Sufficient funds detected. Dispensing your item...");
-                machine.setState(new DispensingState());
+                machine.setState(DispensingState.INSTANCE);
                 machine.dispenseItem();
         }
     }
@@ -24,6 +28,7 @@ public class ItemSelectedState implements VendingMachineState {
     @Override
     public void setOutOfOrder(VendingMachine machine) {
         System.out.println("The machine is now out of service.");
-        machine.setState(new OutOfOrderState());
+        machine.emit(TelemetryRing.OUT_OF_ORDER, 0);
+        machine.setState(OutOfOrderState.INSTANCE);
     }
 }
\ No newline at end of file
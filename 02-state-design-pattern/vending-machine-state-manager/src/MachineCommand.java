@@ -0,0 +1,61 @@
+public class MachineCommand {
+    public enum Type {
+        SELECT_ITEM,
+        INSERT_COIN,
+        DISPENSE_ITEM,
+        SET_OUT_OF_ORDER
+    }
+
+    private final Type type;
+    private final String item;
+    private final int amount;
+    private final long createdAt;
+
+    private MachineCommand(Type type, String item, int amount) {
+        this.type = type;
+        this.item = item;
+        this.amount = amount;
+        this.createdAt = System.nanoTime();
+    }
+
+    public static MachineCommand selectItem(String item) {
+        return new MachineCommand(Type.SELECT_ITEM, item, 0);
+    }
+
+    public static MachineCommand insertCoin(int amount) {
+        return new MachineCommand(Type.INSERT_COIN, null, amount);
+    }
+
+    public static MachineCommand dispenseItem() {
+        return new MachineCommand(Type.DISPENSE_ITEM, null, 0);
+    }
+
+    public static MachineCommand setOutOfOrder() {
+        return new MachineCommand(Type.SET_OUT_OF_ORDER, null, 0);
+    }
+
+    public void applyTo(VendingMachine machine) {
+        switch (type) {
+            case SELECT_ITEM:
+                machine.selectItem(item);
+                break;
+            case INSERT_COIN:
+                machine.insertCoin(amount);
+                break;
+            case DISPENSE_ITEM:
+                machine.dispenseItem();
+                break;
+            case SET_OUT_OF_ORDER:
+                machine.setOutOfOrder();
+                break;
+        }
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+}
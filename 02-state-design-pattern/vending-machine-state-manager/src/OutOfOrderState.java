@@ -1,4 +1,6 @@
 public class OutOfOrderState implements VendingMachineState {
+    public static final OutOfOrderState INSTANCE = new OutOfOrderState();
+
     @Override
     public void selectItem(VendingMachine machine, String item) {
         System.out.println("This vending machine is out of service. Item selection is unavailable.");
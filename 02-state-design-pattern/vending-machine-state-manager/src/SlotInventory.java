@@ -0,0 +1,153 @@
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class SlotInventory {
+    private final String[] names;
+    private final int[] codes;
+    private final int[] prices;
+    private final AtomicIntegerArray stock;
+    private int size;
+
+    // Open-addressing indexes from slot code and item name to slot index; both hold
+    // slot index + 1 so that 0 marks an empty bucket
+    private final int tableMask;
+    private final int[] codeKeys;
+    private final int[] codeSlots;
+    private final String[] nameKeys;
+    private final int[] nameSlots;
+
+    public SlotInventory(int capacity) {
+        this.names = new String[capacity];
+        this.codes = new int[capacity];
+        this.prices = new int[capacity];
+        this.stock = new AtomicIntegerArray(capacity);
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        this.tableMask = tableSize - 1;
+        this.codeKeys = new int[tableSize];
+        this.codeSlots = new int[tableSize];
+        this.nameKeys = new String[tableSize];
+        this.nameSlots = new int[tableSize];
+    }
+
+    // Slots are set up before the machine starts selling; restock and sale are thread-safe
+    public int addSlot(String code, String name, int price, int initialStock) {
+        int key = parseCode(code);
+        if (key < 0) {
+            throw new IllegalArgumentException("Invalid slot code: " + code);
+        }
+        if (initialStock < 0) {
+            throw new IllegalArgumentException("Invalid initial stock: " + initialStock);
+        }
+        if (find(code) >= 0 || find(name) >= 0) {
+            throw new IllegalArgumentException("Slot or item already exists: " + code + " / " + name);
+        }
+        if (size == names.length) {
+            throw new IllegalStateException("No free slots");
+        }
+        int slot = size++;
+        names[slot] = name;
+        codes[slot] = key;
+        prices[slot] = price;
+        stock.set(slot, initialStock);
+
+        int bucket = mix(key) & tableMask;
+        while (codeSlots[bucket] != 0) {
+            bucket = (bucket + 1) & tableMask;
+        }
+        codeKeys[bucket] = key;
+        codeSlots[bucket] = slot + 1;
+
+        bucket = mix(name.hashCode()) & tableMask;
+        while (nameSlots[bucket] != 0) {
+            bucket = (bucket + 1) & tableMask;
+        }
+        nameKeys[bucket] = name;
+        nameSlots[bucket] = slot + 1;
+        return slot;
+    }
+
+    // Looks an item up by slot code ("A1") or by name without allocating; -1 if unknown
+    public int find(String item) {
+        int key = parseCode(item);
+        if (key >= 0) {
+            for (int bucket = mix(key) & tableMask; codeSlots[bucket] != 0; bucket = (bucket + 1) & tableMask) {
+                if (codeKeys[bucket] == key) {
+                    return codeSlots[bucket] - 1;
+                }
+            }
+        }
+        for (int bucket = mix(item.hashCode()) & tableMask; nameSlots[bucket] != 0; bucket = (bucket + 1) & tableMask) {
+            if (nameKeys[bucket].equals(item)) {
+                return nameSlots[bucket] - 1;
+            }
+        }
+        return -1;
+    }
+
+    public boolean sell(int slot) {
+        while (true) {
+            int current = stock.get(slot);
+            if (current <= 0) {
+                return false;
+            }
+            if (stock.compareAndSet(slot, current, current - 1)) {
+                return true;
+            }
+        }
+    }
+
+    public int restock(int slot, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Invalid restock quantity: " + quantity);
+        }
+        return stock.addAndGet(slot, quantity);
+    }
+
+    public int getStock(int slot) {
+        return stock.get(slot);
+    }
+
+    public int getTotalStock() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += stock.get(i);
+        }
+        return total;
+    }
+
+    public int getPrice(int slot) {
+        return prices[slot];
+    }
+
+    public String getName(int slot) {
+        return names[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Encodes a slot code of one letter and up to three digits, e.g. "B12", as an int
+    public static int parseCode(String code) {
+        int length = code.length();
+        if (length < 2 || length > 4) {
+            return -1;
+        }
+        char row = code.charAt(0);
+        if (row < 'A' || row > 'Z') {
+            return -1;
+        }
+        int column = 0;
+        for (int i = 1; i < length; i++) {
+            char c = code.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            column = column * 10 + (c - '0');
+        }
+        return (row - 'A') * 1000 + column;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,166 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SlotInventoryTest {
+    private static final int ROWS = 26;
+    private static final int COLUMNS = 20;
+    private static final int THREADS = 8;
+    private static final int STOCK = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        SlotInventory inventory = new SlotInventory(ROWS * COLUMNS);
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS; column++) {
+                int slot = row * COLUMNS + column;
+                inventory.addSlot(code(row, column), "Item " + slot, 10 + slot, slot % 5);
+            }
+        }
+        boolean found = true;
+        for (int slot = 0; slot < ROWS * COLUMNS; slot++) {
+            String code = code(slot / COLUMNS, slot % COLUMNS);
+            found &= inventory.find(code) == slot && inventory.find("Item " + slot) == slot;
+            found &= inventory.getPrice(slot) == 10 + slot && inventory.getName(slot).equals("Item " + slot);
+        }
+        check(found, "All " + inventory.size() + " slots found by code and by name");
+        check(inventory.find("Z99") == -1 && inventory.find("Soda") == -1 && inventory.find("A") == -1,
+                "Unknown codes and names are not found");
+        int expectedTotal = 0;
+        for (int slot = 0; slot < ROWS * COLUMNS; slot++) {
+            expectedTotal += slot % 5;
+        }
+        check(inventory.getTotalStock() == expectedTotal, "Total stock adds up every slot");
+
+        check(SlotInventory.parseCode("B12") == 1012 && SlotInventory.parseCode("A001") == 1
+                && SlotInventory.parseCode("a1") == -1 && SlotInventory.parseCode("A1B") == -1
+                && SlotInventory.parseCode("A12345") == -1, "Slot codes parse as one letter and up to three digits");
+        check(rejects(() -> inventory.addSlot("A1", "New item", 10, 1)), "Duplicate slot code is rejected");
+        check(rejects(() -> inventory.addSlot("Z19", "Item 3", 10, 1)), "Duplicate item name is rejected");
+        check(rejects(() -> inventory.addSlot("1A", "Bad code", 10, 1)), "Invalid slot code is rejected");
+        SlotInventory full = new SlotInventory(1);
+        full.addSlot("A1", "Cola", 10, 1);
+        check(rejects(() -> full.addSlot("A2", "Water", 10, 1)), "Adding past capacity is rejected");
+
+        // Concurrent buyers on one slot: exactly the stocked quantity is sold
+        SlotInventory single = new SlotInventory(1);
+        int slot = single.addSlot("A1", "Cola", 25, STOCK);
+        AtomicInteger sold = new AtomicInteger();
+        Thread[] buyers = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            buyers[t] = new Thread(() -> {
+                while (single.sell(slot)) {
+                    sold.incrementAndGet();
+                }
+            });
+            buyers[t].start();
+        }
+        for (Thread buyer : buyers) {
+            buyer.join();
+        }
+        check(sold.get() == STOCK && single.getStock(slot) == 0 && !single.sell(slot),
+                THREADS + " buyers sold exactly " + STOCK + " items without overselling");
+        check(single.restock(slot, 3) == 3 && single.getTotalStock() == 3, "Restock refills the slot");
+        check(rejects(() -> single.restock(slot, -5)) && rejects(() -> single.restock(slot, 0)) && single.getStock(slot) == 3,
+                "Restock rejects quantities that are not positive");
+        check(rejects(() -> new SlotInventory(1).addSlot("A1", "Cola", 25, -1)), "Negative initial stock is rejected");
+
+        // A machine with nothing selected owes nothing, and states are shared rather than reallocated
+        PrintStream console = System.out;
+        VendingMachine machine = new VendingMachine(single);
+        int priceBeforeSelection;
+        VendingMachineState afterSale;
+        try {
+            System.setOut(new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+            }));
+            priceBeforeSelection = machine.getItemPrice();
+            machine.selectItem("A1");
+            machine.insertCoin(25);
+            afterSale = machine.getState();
+        } finally {
+            System.setOut(console);
+        }
+        check(priceBeforeSelection == 0, "Price before any selection is 0");
+        check(afterSale == IdleState.INSTANCE && single.getStock(slot) == 2, "Sale returns the machine to the shared idle state");
+
+        testSoldOutRefund();
+    }
+
+    // Another buyer takes the last item between selection and payment: the credit must not vanish
+    private static void testSoldOutRefund() {
+        PrintStream console = System.out;
+        SlotInventory inventory = new SlotInventory(1);
+        int slot = inventory.addSlot("A1", "Cola", 25, 0);
+        VendingMachine machine = new VendingMachine(inventory);
+        VendingMachine withTubes = new VendingMachine(inventory);
+        withTubes.setChangeMaker(new ChangeMaker(new CoinTubes(new int[] {5, 10, 25}, new int[3]), 100, 0, Runnable::run));
+        // Tubes that can never pay back a quarter
+        VendingMachine smallChange = new VendingMachine(inventory);
+        smallChange.setChangeMaker(new ChangeMaker(new CoinTubes(new int[] {5, 10, 25}, new int[3]), 20, 0, Runnable::run));
+        VendingMachineState afterRefund;
+        int fsmState = VendingMachineFsm.State.IDLE.ordinal();
+        int machineBalance;
+        int fsmBalance;
+        try {
+            System.setOut(new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+            }));
+            sellOutAfterSelection(machine, inventory, slot);
+            afterRefund = machine.getState();
+            machineBalance = machine.getBalance();
+
+            inventory.restock(slot, 1);
+            fsmState = VendingMachineFsm.selectItem(fsmState, machine, "A1");
+            inventory.sell(slot);
+            fsmState = VendingMachineFsm.insertCoin(fsmState, machine, 25);
+            fsmBalance = machine.getBalance();
+
+            sellOutAfterSelection(withTubes, inventory, slot);
+            sellOutAfterSelection(smallChange, inventory, slot);
+        } finally {
+            System.setOut(console);
+        }
+        check(afterRefund == IdleState.INSTANCE && machineBalance == 0, "Sold-out item refunds the credit and returns to idle");
+        check(fsmState == VendingMachineFsm.State.IDLE.ordinal() && fsmBalance == 0,
+                "Compiled state machine refunds a sold-out item the same way");
+        check(withTubes.getBalance() == 0 && withTubes.getChangeMaker().getTubes().getCount(2) == 0,
+                "Sold-out refund is paid back from the coin tubes");
+        check(smallChange.getState() == IdleState.INSTANCE && smallChange.getBalance() == 25,
+                "Credit the tubes cannot pay back is kept for another selection");
+    }
+
+    private static void sellOutAfterSelection(VendingMachine machine, SlotInventory inventory, int slot) {
+        inventory.restock(slot, 1);
+        machine.selectItem("A1");
+        inventory.sell(slot);
+        machine.insertCoin(25);
+    }
+
+    private static String code(int row, int column) {
+        return (char) ('A' + row) + String.valueOf(column);
+    }
+
+    private interface Setup {
+        int run();
+    }
+
+    private static boolean rejects(Setup setup) {
+        try {
+            setup.run();
+            return false;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return true;
+        }
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
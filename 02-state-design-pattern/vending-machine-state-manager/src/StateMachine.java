@@ -0,0 +1,150 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class StateMachine<S extends Enum<S>, E extends Enum<E>, C> {
+    public interface Guard<C> {
+        boolean test(C context, long argument);
+    }
+
+    public interface Action<C> {
+        void execute(C context, long argument);
+    }
+
+    public interface TransitionListener<C> {
+        void onTransition(C context, int from, int event, int to);
+    }
+
+    private final S[] states;
+    private final E[] events;
+    private final int eventCount;
+    // Dispatch tables indexed by state ordinal * event count + event ordinal
+    private final int[] targets;
+    private final Guard<C>[] guards;
+    private final Action<C>[] actions;
+    // Entry and exit actions indexed by state ordinal
+    private final Action<C>[] entryActions;
+    private final Action<C>[] exitActions;
+    private final TransitionListener<C>[] listeners;
+
+    @SuppressWarnings("unchecked")
+    private StateMachine(Builder<S, E, C> builder) {
+        this.states = builder.stateType.getEnumConstants();
+        this.events = builder.eventType.getEnumConstants();
+        this.eventCount = events.length;
+        this.targets = builder.targets.clone();
+        this.guards = builder.guards.clone();
+        this.actions = builder.actions.clone();
+        this.entryActions = builder.entryActions.clone();
+        this.exitActions = builder.exitActions.clone();
+        this.listeners = (TransitionListener<C>[]) builder.listeners.toArray(new TransitionListener<?>[0]);
+    }
+
+    public static <S extends Enum<S>, E extends Enum<E>, C> Builder<S, E, C> builder(Class<S> stateType, Class<E> eventType) {
+        return new Builder<>(stateType, eventType);
+    }
+
+    // Fires an event and returns the new state ordinal; an event with no transition, or whose
+    // guard rejects it, leaves the state unchanged. Transitions back into the same state are
+    // internal: only the transition action runs, not the exit and entry actions
+    public int fire(int state, E event, C context, long argument) {
+        int index = state * eventCount + event.ordinal();
+        int target = targets[index];
+        if (target < 0) {
+            return state;
+        }
+        Guard<C> guard = guards[index];
+        if (guard != null && !guard.test(context, argument)) {
+            return state;
+        }
+        if (target != state && exitActions[state] != null) {
+            exitActions[state].execute(context, argument);
+        }
+        if (actions[index] != null) {
+            actions[index].execute(context, argument);
+        }
+        if (target != state && entryActions[target] != null) {
+            entryActions[target].execute(context, argument);
+        }
+        for (TransitionListener<C> listener : listeners) {
+            listener.onTransition(context, state, event.ordinal(), target);
+        }
+        return target;
+    }
+
+    public S fire(S state, E event, C context, long argument) {
+        return states[fire(state.ordinal(), event, context, argument)];
+    }
+
+    public boolean accepts(int state, E event) {
+        return targets[state * eventCount + event.ordinal()] >= 0;
+    }
+
+    public S state(int ordinal) {
+        return states[ordinal];
+    }
+
+    public E event(int ordinal) {
+        return events[ordinal];
+    }
+
+    public static class Builder<S extends Enum<S>, E extends Enum<E>, C> {
+        private final Class<S> stateType;
+        private final Class<E> eventType;
+        private final int eventCount;
+        private final int[] targets;
+        private final Guard<C>[] guards;
+        private final Action<C>[] actions;
+        private final Action<C>[] entryActions;
+        private final Action<C>[] exitActions;
+        private final List<TransitionListener<C>> listeners = new ArrayList<>();
+
+        @SuppressWarnings("unchecked")
+        private Builder(Class<S> stateType, Class<E> eventType) {
+            this.stateType = stateType;
+            this.eventType = eventType;
+            int stateCount = stateType.getEnumConstants().length;
+            this.eventCount = eventType.getEnumConstants().length;
+            this.targets = new int[stateCount * eventCount];
+            Arrays.fill(targets, -1);
+            this.guards = (Guard<C>[]) new Guard<?>[targets.length];
+            this.actions = (Action<C>[]) new Action<?>[targets.length];
+            this.entryActions = (Action<C>[]) new Action<?>[stateCount];
+            this.exitActions = (Action<C>[]) new Action<?>[stateCount];
+        }
+
+        public Builder<S, E, C> transition(S from, E event, S to) {
+            return transition(from, event, to, null, null);
+        }
+
+        public Builder<S, E, C> transition(S from, E event, S to, Guard<C> guard, Action<C> action) {
+            int index = from.ordinal() * eventCount + event.ordinal();
+            if (targets[index] >= 0) {
+                throw new IllegalStateException("Duplicate transition for " + from + " on " + event);
+            }
+            targets[index] = to.ordinal();
+            guards[index] = guard;
+            actions[index] = action;
+            return this;
+        }
+
+        public Builder<S, E, C> onEntry(S state, Action<C> action) {
+            entryActions[state.ordinal()] = action;
+            return this;
+        }
+
+        public Builder<S, E, C> onExit(S state, Action<C> action) {
+            exitActions[state.ordinal()] = action;
+            return this;
+        }
+
+        public Builder<S, E, C> listener(TransitionListener<C> listener) {
+            listeners.add(listener);
+            return this;
+        }
+
+        public StateMachine<S, E, C> build() {
+            return new StateMachine<>(this);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+public class TelemetryAggregator implements AutoCloseable {
+    private static final int BATCH = 4096;
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    private final TelemetryRing ring;
+    private final File directory;
+    private final long windowMillis;
+    // The coin denominations the machines' tubes take, ascending; anything else is counted as coins_other
+    private final int[] denominations;
+    private final Thread worker;
+
+    // Per-window columns, indexed by machine id; only the worker thread writes them
+    private final long[] sales;
+    private final long[] revenue;
+    private final long[][] coins;
+    private final long[] downtime;
+    private final long[] outOfOrderSince;
+    private final long[] totalSales;
+    private final long[] totalRevenue;
+
+    private long windowStart;
+    private volatile boolean running = true;
+
+    public TelemetryAggregator(TelemetryRing ring, int machines, int[] denominations, File directory, long windowMillis) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException("Cannot create telemetry directory: " + directory);
+        }
+        this.ring = ring;
+        this.directory = directory;
+        this.windowMillis = windowMillis;
+        this.denominations = denominations.clone();
+        Arrays.sort(this.denominations);
+        this.sales = new long[machines];
+        this.revenue = new long[machines];
+        this.coins = new long[denominations.length + 1][machines];
+        this.downtime = new long[machines];
+        this.outOfOrderSince = new long[machines];
+        this.totalSales = new long[machines];
+        this.totalRevenue = new long[machines];
+        this.windowStart = System.currentTimeMillis();
+        this.worker = new Thread(this::run, "vending-telemetry");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public synchronized long getTotalSales(int machine) {
+        return totalSales[machine];
+    }
+
+    public synchronized long getTotalRevenue(int machine) {
+        return totalRevenue[machine];
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        worker.join();
+    }
+
+    private void run() {
+        while (running) {
+            int read = ring.drain(this::onEvent, BATCH);
+            long now = System.currentTimeMillis();
+            if (now - windowStart >= windowMillis) {
+                spill(now);
+            }
+            if (read == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        while (ring.drain(this::onEvent, BATCH) > 0) {
+            // Take in whatever was published before close
+        }
+        spill(System.currentTimeMillis());
+    }
+
+    private void onEvent(long event, long timestamp) {
+        int machine = TelemetryRing.machineId(event);
+        int value = TelemetryRing.value(event);
+        switch (TelemetryRing.type(event)) {
+            case TelemetryRing.COIN:
+                coins[denominationIndex(value)][machine]++;
+                break;
+            case TelemetryRing.DISPENSE:
+                sales[machine]++;
+                revenue[machine] += value;
+                break;
+            case TelemetryRing.OUT_OF_ORDER:
+                if (outOfOrderSince[machine] == 0) {
+                    outOfOrderSince[machine] = timestamp;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private int denominationIndex(int amount) {
+        int index = Arrays.binarySearch(denominations, amount);
+        return index < 0 ? denominations.length : index;
+    }
+
+    // Writes the window as one column per metric, each holding a value for every machine
+    private void spill(long windowEnd) {
+        for (int machine = 0; machine < downtime.length; machine++) {
+            if (outOfOrderSince[machine] != 0) {
+                downtime[machine] = windowEnd - Math.max(outOfOrderSince[machine], windowStart);
+            }
+        }
+        File file = new File(directory, "window-" + windowStart + ".col");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeLong(windowStart);
+            out.writeLong(windowEnd);
+            out.writeInt(sales.length);
+            out.writeInt(4 + denominations.length);
+            writeColumn(out, "sales", sales);
+            writeColumn(out, "revenue", revenue);
+            for (int i = 0; i < denominations.length; i++) {
+                writeColumn(out, "coins_" + denominations[i], coins[i]);
+            }
+            writeColumn(out, "coins_other", coins[denominations.length]);
+            writeColumn(out, "downtime_ms", downtime);
+        } catch (IOException e) {
+            System.err.println("Could not write telemetry window " + file + ": " + e.getMessage());
+        }
+
+        synchronized (this) {
+            for (int machine = 0; machine < sales.length; machine++) {
+                totalSales[machine] += sales[machine];
+                totalRevenue[machine] += revenue[machine];
+            }
+        }
+        Arrays.fill(sales, 0);
+        Arrays.fill(revenue, 0);
+        for (long[] column : coins) {
+            Arrays.fill(column, 0);
+        }
+        Arrays.fill(downtime, 0);
+        windowStart = windowEnd;
+    }
+
+    private static void writeColumn(DataOutputStream out, String name, long[] values) throws IOException {
+        out.writeUTF(name);
+        for (long value : values) {
+            out.writeLong(value);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TelemetryRing {
+    public static final int SELECT = 1;
+    public static final int COIN = 2;
+    public static final int DISPENSE = 3;
+    public static final int OUT_OF_ORDER = 4;
+
+    private final int mask;
+    private final long[] events;
+    private final long[] timestamps;
+    // Slot i holds sequence + 1 once its event is written, so the reader never sees half an event
+    private final AtomicLongArray published;
+    private final AtomicLong head = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private volatile long tail;
+
+    public TelemetryRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.mask = capacity - 1;
+        this.events = new long[capacity];
+        this.timestamps = new long[capacity];
+        this.published = new AtomicLongArray(capacity);
+    }
+
+    // Event layout: [machine id: 32][type: 8][value: 24]
+    public static long encode(int machineId, int type, int value) {
+        return ((long) machineId << 32) | ((long) type << 24) | (value & 0xFFFFFF);
+    }
+
+    public static int machineId(long event) {
+        return (int) (event >>> 32);
+    }
+
+    public static int type(long event) {
+        return (int) (event >>> 24) & 0xFF;
+    }
+
+    public static int value(long event) {
+        return (int) event & 0xFFFFFF;
+    }
+
+    // Never blocks: when the reader falls a full ring behind the event is dropped and counted
+    public boolean publish(int machineId, int type, int value) {
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail > mask) {
+                dropped.increment();
+                return false;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) sequence & mask;
+        events[slot] = encode(machineId, type, value);
+        timestamps[slot] = System.currentTimeMillis();
+        published.set(slot, sequence + 1);
+        return true;
+    }
+
+    // Hands up to max events to the handler in publish order and returns how many were read
+    public int drain(EventHandler handler, int max) {
+        long next = tail;
+        int count = 0;
+        while (count < max) {
+            int slot = (int) next & mask;
+            if (published.get(slot) != next + 1) {
+                break;
+            }
+            handler.onEvent(events[slot], timestamps[slot]);
+            next++;
+            count++;
+        }
+        tail = next;
+        return count;
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public interface EventHandler {
+        void onEvent(long event, long timestampMillis);
+    }
+}
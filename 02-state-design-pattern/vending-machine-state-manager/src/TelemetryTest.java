@@ -0,0 +1,175 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TelemetryTest {
+    private static final int EVENTS_PER_ROUND = 1_000_000;
+    private static final int ROUNDS = 20;
+    private static final double PUBLISH_BUDGET_NANOS = 100;
+    private static final int PRODUCERS = 4;
+    private static final int EVENTS_PER_PRODUCER = 2_000_000;
+
+    public static void main(String[] args) throws Exception {
+        File directory = new File(System.getProperty("java.io.tmpdir"), "telemetry-test-" + System.nanoTime());
+        CoinTubes tubes = new CoinTubes(new int[] {5, 10, 25}, new int[] {5, 5, 5});
+        TelemetryRing ring = new TelemetryRing(1 << 10);
+        TelemetryAggregator aggregator = new TelemetryAggregator(ring, 2, tubes.getDenominations(), directory, 60_000);
+
+        SlotInventory inventory = new SlotInventory(1);
+        inventory.addSlot("A1", "Soda", 25, 10);
+        VendingMachine machine = new VendingMachine(inventory);
+        machine.setChangeMaker(new ChangeMaker(tubes, 100, 0, Runnable::run));
+        machine.setTelemetry(ring, 1);
+        PrintStream console = System.out;
+        try {
+            System.setOut(new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+            }));
+            for (int sale = 0; sale < 3; sale++) {
+                machine.selectItem("A1");
+                machine.insertCoin(10);
+                machine.insertCoin(10);
+                machine.insertCoin(5);
+            }
+        } finally {
+            System.setOut(console);
+        }
+        ring.publish(0, TelemetryRing.COIN, 25);
+        ring.publish(0, TelemetryRing.COIN, 50);
+        aggregator.close();
+
+        Map<String, long[]> columns = readWindow(directory);
+        check(columns.keySet().equals(new HashSet<>(Arrays.asList(
+                "sales", "revenue", "coins_5", "coins_10", "coins_25", "coins_other", "downtime_ms"))),
+                "Coin columns follow the configured tubes: " + columns.keySet());
+        check(columns.get("coins_10")[1] == 6 && columns.get("coins_5")[1] == 3 && columns.get("coins_25")[0] == 1
+                && columns.get("coins_other")[0] == 1, "Coins counted per denomination, unknown coins as other");
+        check(columns.get("sales")[1] == 3 && columns.get("revenue")[1] == 75
+                && aggregator.getTotalSales(1) == 3 && aggregator.getTotalRevenue(1) == 75, "Sales and revenue rolled up");
+        delete(directory);
+
+        // Publishing is on the selling path; time it single-threaded with the reader kept out of the way
+        TelemetryRing bench = new TelemetryRing(Integer.highestOneBit(EVENTS_PER_ROUND) << 1);
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < EVENTS_PER_ROUND; i++) {
+                bench.publish(i & 1023, TelemetryRing.COIN, 25);
+            }
+            best = Math.min(best, (System.nanoTime() - start) / (double) EVENTS_PER_ROUND);
+            bench.drain((event, timestamp) -> { }, EVENTS_PER_ROUND);
+        }
+        check(bench.getDropped() == 0, "No events dropped while benchmarking");
+        // Printed rather than asserted, since wall-clock timings vary with the machine and its load
+        System.out.printf("Publish: %.1f ns/event (best of %d rounds, budget %d ns)%n", best, ROUNDS, (int) PUBLISH_BUDGET_NANOS);
+
+        testConcurrentPublishers();
+    }
+
+    // Several machines publish at once while the aggregator's reader drains: every accepted event must be
+    // read exactly once, each publisher's events in the order it sent them, and every refusal counted as dropped
+    private static void testConcurrentPublishers() throws InterruptedException {
+        TelemetryRing ring = new TelemetryRing(1 << 12);
+        LongAdder refused = new LongAdder();
+        int[] nextValue = new int[PRODUCERS];
+        boolean[] inOrder = {true};
+        long[] read = {0};
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int p = 0; p < PRODUCERS; p++) {
+            int machineId = p;
+            producers[p] = new Thread(() -> {
+                for (int value = 0; value < EVENTS_PER_PRODUCER; value++) {
+                    // A full ring refuses rather than blocks; the producer tries the same event again
+                    while (!ring.publish(machineId, TelemetryRing.COIN, value)) {
+                        refused.increment();
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        Thread reader = new Thread(() -> {
+            long total = (long) PRODUCERS * EVENTS_PER_PRODUCER;
+            while (read[0] < total) {
+                int drained = ring.drain((event, timestamp) -> {
+                    int machineId = TelemetryRing.machineId(event);
+                    inOrder[0] &= TelemetryRing.type(event) == TelemetryRing.COIN
+                            && TelemetryRing.value(event) == nextValue[machineId];
+                    nextValue[machineId]++;
+                    read[0]++;
+                }, 4096);
+                if (drained == 0) {
+                    Thread.yield();
+                }
+            }
+        });
+        long start = System.nanoTime();
+        reader.start();
+        for (Thread producer : producers) {
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        reader.join(30_000);
+        long elapsed = System.nanoTime() - start;
+
+        boolean complete = !reader.isAlive();
+        for (int p = 0; p < PRODUCERS; p++) {
+            complete &= nextValue[p] == EVENTS_PER_PRODUCER;
+        }
+        check(complete && read[0] == (long) PRODUCERS * EVENTS_PER_PRODUCER,
+                "All " + PRODUCERS * EVENTS_PER_PRODUCER + " events from " + PRODUCERS + " publishers read once");
+        check(inOrder[0], "Each publisher's events read in the order they were published");
+        check(ring.getDropped() == refused.sum(), "Every refused publish counted as dropped: " + refused.sum());
+        System.out.printf("Concurrent publish: %.1f million events/s with %d publishers%n",
+                (double) PRODUCERS * EVENTS_PER_PRODUCER * 1_000 / elapsed, PRODUCERS);
+    }
+
+    private static Map<String, long[]> readWindow(File directory) throws IOException {
+        File[] windows = directory.listFiles((dir, name) -> name.endsWith(".col"));
+        Map<String, long[]> columns = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(windows[0])))) {
+            in.readLong();
+            in.readLong();
+            int machines = in.readInt();
+            int count = in.readInt();
+            for (int c = 0; c < count; c++) {
+                String name = in.readUTF();
+                long[] values = new long[machines];
+                for (int m = 0; m < machines; m++) {
+                    values[m] = in.readLong();
+                }
+                columns.put(name, values);
+            }
+        }
+        return columns;
+    }
+
+    private static void delete(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
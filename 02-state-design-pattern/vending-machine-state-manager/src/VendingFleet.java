@@ -0,0 +1,65 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+public class VendingFleet implements AutoCloseable {
+    private final List<VendingMachineActor> actors;
+    private final ExecutorService executor;
+    private final FleetMetrics metrics = new FleetMetrics();
+
+    public VendingFleet(int machines, int inventory, int mailboxCapacity, int threads,
+                        BiConsumer<MachineCommand, RuntimeException> failureHandler) {
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "vending-fleet");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.actors = new ArrayList<>(machines);
+        for (int i = 0; i < machines; i++) {
+            actors.add(new VendingMachineActor(new VendingMachine(inventory), mailboxCapacity, executor, metrics, failureHandler));
+        }
+    }
+
+    public VendingFleet(int machines, int inventory, int mailboxCapacity, int threads) {
+        this(machines, inventory, mailboxCapacity, threads, VendingMachineActor::reportFailure);
+    }
+
+    public VendingFleet(int machines, int inventory) {
+        this(machines, inventory, 256, Runtime.getRuntime().availableProcessors());
+    }
+
+    public int size() {
+        return actors.size();
+    }
+
+    public VendingMachineActor getActor(int index) {
+        return actors.get(index);
+    }
+
+    public boolean tell(int machine, MachineCommand command) {
+        return actors.get(machine).tell(command);
+    }
+
+    public FleetMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Waits until every mailbox has been drained
+    public void awaitIdle() throws InterruptedException {
+        for (VendingMachineActor actor : actors) {
+            while (!actor.isIdle()) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        awaitIdle();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,106 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class VendingFleetTest {
+    private static final int MACHINES = 1_000;
+    private static final int SENDERS = 4;
+    private static final int PURCHASES = 50;
+    private static final int INVENTORY = 100;
+
+    public static void main(String[] args) throws InterruptedException {
+        PrintStream console = System.out;
+        VendingFleet fleet = new VendingFleet(MACHINES, INVENTORY);
+
+        // Silence the per-transition messages of a thousand machines
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+        try {
+            // Each sender owns a slice of the fleet; every purchase is select + a 15-coin, so a
+            // machine only ends with the expected stock and change if its commands ran in order
+            Thread[] senders = new Thread[SENDERS];
+            for (int s = 0; s < SENDERS; s++) {
+                final int first = s;
+                senders[s] = new Thread(() -> {
+                    for (int purchase = 0; purchase < PURCHASES; purchase++) {
+                        for (int machine = first; machine < MACHINES; machine += SENDERS) {
+                            send(fleet, machine, MachineCommand.selectItem("Soda"));
+                            send(fleet, machine, MachineCommand.insertCoin(15));
+                        }
+                    }
+                });
+                senders[s].start();
+            }
+            for (Thread sender : senders) {
+                sender.join();
+            }
+            fleet.close();
+        } finally {
+            System.setOut(console);
+        }
+
+        int outOfOrder = -1;
+        for (int i = 0; i < fleet.size() && outOfOrder < 0; i++) {
+            VendingMachine machine = fleet.getActor(i).getMachine();
+            if (machine.getInventory() != INVENTORY - PURCHASES || machine.getBalance() != PURCHASES * 5) {
+                outOfOrder = i;
+            }
+        }
+        check(outOfOrder < 0, "Per-machine command ordering preserved"
+                + (outOfOrder < 0 ? "" : ", machine " + outOfOrder + " out of order:" + fleet.getActor(outOfOrder).getMachine()));
+        System.out.println(fleet.getMetrics());
+
+        testFailingCommand(console);
+    }
+
+    // A command that throws must be reported and must not stop the actor draining its mailbox
+    private static void testFailingCommand(PrintStream console) throws InterruptedException {
+        ConcurrentLinkedQueue<MachineCommand> failures = new ConcurrentLinkedQueue<>();
+        VendingFleet fleet = new VendingFleet(1, INVENTORY, 16, 1, (command, e) -> failures.add(command));
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+        boolean idle;
+        try {
+            send(fleet, 0, MachineCommand.selectItem(null));
+            send(fleet, 0, MachineCommand.selectItem("Soda"));
+            send(fleet, 0, MachineCommand.insertCoin(15));
+            // Bounded wait: a stalled actor would make awaitIdle() hang forever
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (!(idle = fleet.getActor(0).isIdle()) && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            if (idle) {
+                fleet.close();
+            }
+        } finally {
+            System.setOut(console);
+        }
+        VendingMachine machine = fleet.getActor(0).getMachine();
+        check(idle, "Actor drains its mailbox after a command throws");
+        check(failures.size() == 1 && failures.peek().getType() == MachineCommand.Type.SELECT_ITEM,
+                "Failing command reported to the failure handler");
+        check(fleet.getMetrics().getFailed() == 1 && fleet.getMetrics().getProcessed() == 2,
+                "Failed command counted apart from processed ones");
+        check(machine.getInventory() == INVENTORY - 1 && machine.getBalance() == 5,
+                "Commands after the failure still applied in order");
+    }
+
+    private static void send(VendingFleet fleet, int machine, MachineCommand command) {
+        while (!fleet.tell(machine, command)) {
+            Thread.yield();
+        }
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
@@ -0,0 +1,201 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class VendingFsmTest {
+    private static final int SESSIONS = 2_000;
+    private static final int STEPS_PER_SESSION = 200;
+    private static final String[] ITEMS = {"Soda", "Chips", "Candy", "A1", "B2", "Gum"};
+    private static final int[] COINS = {1, 5, 10, 25, 50, 3};
+    private static final int BENCHMARK_OPERATIONS = 2_000_000;
+    private static final int BENCHMARK_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        PrintStream console = System.out;
+        Random random = new Random(13);
+        int steps = 0;
+        try {
+            // The state classes print every step; only the comparison matters here
+            System.setOut(new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+            }));
+            for (int session = 0; session < SESSIONS; session++) {
+                TelemetryRing objectEvents = new TelemetryRing(1024);
+                TelemetryRing tableEvents = new TelemetryRing(1024);
+                VendingMachine objects = newMachine(objectEvents);
+                VendingMachine table = newMachine(tableEvents);
+                int state = VendingMachineFsm.State.IDLE.ordinal();
+                for (int step = 0; step < STEPS_PER_SESSION; step++) {
+                    int roll = random.nextInt(100);
+                    if (roll < 30) {
+                        String item = ITEMS[random.nextInt(ITEMS.length)];
+                        objects.selectItem(item);
+                        state = VendingMachineFsm.selectItem(state, table, item);
+                    } else if (roll < 85) {
+                        int coin = COINS[random.nextInt(COINS.length)];
+                        objects.insertCoin(coin);
+                        state = VendingMachineFsm.insertCoin(state, table, coin);
+                    } else if (roll < 99) {
+                        objects.dispenseItem();
+                        state = VendingMachineFsm.dispenseItem(state, table);
+                    } else {
+                        objects.setOutOfOrder();
+                        state = VendingMachineFsm.setOutOfOrder(state, table);
+                    }
+                    String where = "session " + session + " step " + step;
+                    compare(objects, table, state, where);
+                    expect(drain(objectEvents).equals(drain(tableEvents)), "Telemetry after " + where);
+                    steps++;
+                }
+            }
+        } finally {
+            System.setOut(console);
+        }
+        check(steps == SESSIONS * STEPS_PER_SESSION, "FSM and state classes agree on state, balance, stock, coin tubes and telemetry over " + steps + " steps");
+
+        benchmark(console);
+    }
+
+    // The same random operations through the state classes (an interface call on one of four shared state
+    // objects) and through the compiled table. The state classes also print every step, which is part of
+    // what the table removes, so output goes to a stream that discards it in both runs
+    private static void benchmark(PrintStream console) {
+        Random random = new Random(17);
+        int[] operations = new int[BENCHMARK_OPERATIONS];
+        for (int i = 0; i < operations.length; i++) {
+            int roll = random.nextInt(100);
+            operations[i] = roll < 30 ? -1 - random.nextInt(ITEMS.length) : roll < 90 ? COINS[random.nextInt(COINS.length)] : 0;
+        }
+        long objectNanos = Long.MAX_VALUE;
+        long tableNanos = Long.MAX_VALUE;
+        long objectBytes = 0;
+        long tableBytes = 0;
+        int sink = 0;
+        try {
+            System.setOut(new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+            }));
+            for (int round = 0; round < BENCHMARK_ROUNDS; round++) {
+                VendingMachine objects = benchmarkMachine();
+                long allocated = allocatedBytes();
+                long start = System.nanoTime();
+                for (int operation : operations) {
+                    if (operation < 0) {
+                        objects.selectItem(ITEMS[-1 - operation]);
+                    } else if (operation > 0) {
+                        objects.insertCoin(operation);
+                    } else {
+                        objects.dispenseItem();
+                    }
+                }
+                objectNanos = Math.min(objectNanos, System.nanoTime() - start);
+                objectBytes = allocatedBytes() - allocated;
+                sink += objects.getBalance();
+
+                VendingMachine table = benchmarkMachine();
+                int state = VendingMachineFsm.State.IDLE.ordinal();
+                allocated = allocatedBytes();
+                start = System.nanoTime();
+                for (int operation : operations) {
+                    if (operation < 0) {
+                        state = VendingMachineFsm.selectItem(state, table, ITEMS[-1 - operation]);
+                    } else if (operation > 0) {
+                        state = VendingMachineFsm.insertCoin(state, table, operation);
+                    } else {
+                        state = VendingMachineFsm.dispenseItem(state, table);
+                    }
+                }
+                tableNanos = Math.min(tableNanos, System.nanoTime() - start);
+                tableBytes = allocatedBytes() - allocated;
+                sink += table.getBalance();
+            }
+        } finally {
+            System.setOut(console);
+        }
+        System.out.printf("State classes: %.1f ns/operation, %d bytes allocated/operation%n",
+                (double) objectNanos / BENCHMARK_OPERATIONS, objectBytes / BENCHMARK_OPERATIONS);
+        System.out.printf("Compiled FSM:  %.1f ns/operation, %d bytes allocated/operation (%s)%n",
+                (double) tableNanos / BENCHMARK_OPERATIONS, tableBytes / BENCHMARK_OPERATIONS, sink >= 0 ? "ok" : "?");
+    }
+
+    // Plenty of stock and no change maker, so the run measures dispatch rather than sold-out paths
+    private static VendingMachine benchmarkMachine() {
+        SlotInventory inventory = new SlotInventory(8);
+        inventory.addSlot("A1", "Soda", 35, BENCHMARK_OPERATIONS);
+        inventory.addSlot("B2", "Chips", 50, BENCHMARK_OPERATIONS);
+        inventory.addSlot("C3", "Candy", 25, BENCHMARK_OPERATIONS);
+        return new VendingMachine(inventory);
+    }
+
+    // Bytes allocated by this thread so far, or 0 where the JVM does not report it
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static VendingMachine newMachine(TelemetryRing telemetry) {
+        SlotInventory inventory = new SlotInventory(8);
+        inventory.addSlot("A1", "Soda", 35, 3);
+        inventory.addSlot("B2", "Chips", 50, 2);
+        inventory.addSlot("C3", "Candy", 25, 0);
+        VendingMachine machine = new VendingMachine(inventory);
+        machine.setChangeMaker(new ChangeMaker(new CoinTubes(new int[] {1, 5, 10, 25, 50}, new int[] {2, 2, 2, 1, 0}),
+                100, 2, Runnable::run));
+        machine.setTelemetry(telemetry, 1);
+        return machine;
+    }
+
+    private static void compare(VendingMachine objects, VendingMachine table, int state, String where) {
+        expect(stateOf(objects) == state, "State after " + where);
+        expect(objects.getBalance() == table.getBalance(), "Balance after " + where);
+        expect(objects.getInventory() == table.getInventory(), "Stock after " + where);
+        expect(Arrays.equals(objects.getChangeMaker().getTubes().snapshot(), table.getChangeMaker().getTubes().snapshot()),
+                "Coin tubes after " + where);
+        expect(objects.isExactChangeOnly() == table.isExactChangeOnly(), "Exact change mode after " + where);
+    }
+
+    private static int stateOf(VendingMachine machine) {
+        VendingMachineState state = machine.getState();
+        if (state instanceof IdleState) {
+            return VendingMachineFsm.State.IDLE.ordinal();
+        }
+        if (state instanceof ItemSelectedState) {
+            return VendingMachineFsm.State.ITEM_SELECTED.ordinal();
+        }
+        if (state instanceof DispensingState) {
+            return VendingMachineFsm.State.DISPENSING.ordinal();
+        }
+        return VendingMachineFsm.State.OUT_OF_ORDER.ordinal();
+    }
+
+    private static List<Long> drain(TelemetryRing telemetry) {
+        List<Long> events = new ArrayList<>();
+        telemetry.drain((event, timestamp) -> events.add(event), Integer.MAX_VALUE);
+        return events;
+    }
+
+    private static void expect(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
@@ -1,22 +1,126 @@
 public class VendingMachine {
-    private int inventory;
+    private final SlotInventory inventory;
+    private final int fallbackSlot;
     private int balance;
     private String selectedItem;
-    private int itemPrice = 10;
+    private int selectedSlot = -1;
     private boolean isItemSelected = false;
 
     private VendingMachineState currentState;
+    private TelemetryRing telemetry;
+    private ChangeMaker changeMaker;
+    private int[] changeCoins;
+    private int machineId;
 
+    // Single-item machine: every selection is served from one slot priced at 10
     public VendingMachine(int inventory) {
+        this.inventory = new SlotInventory(1);
+        this.inventory.addSlot("A1", "Item", 10, inventory);
+        this.fallbackSlot = 0;
+        this.balance = 0;
+        this.currentState = IdleState.INSTANCE;
+    }
+
+    public VendingMachine(SlotInventory inventory) {
         this.inventory = inventory;
+        this.fallbackSlot = -1;
         this.balance = 0;
-        this.currentState = new IdleState();
+        this.currentState = IdleState.INSTANCE;
+    }
+
+    public void setTelemetry(TelemetryRing telemetry, int machineId) {
+        this.telemetry = telemetry;
+        this.machineId = machineId;
+    }
+
+    public void emit(int type, int value) {
+        if (telemetry != null) {
+            telemetry.publish(machineId, type, value);
+        }
+    }
+
+    public void setChangeMaker(ChangeMaker changeMaker) {
+        this.changeMaker = changeMaker;
+        this.changeCoins = new int[changeMaker.getTubes().size()];
+    }
+
+    public ChangeMaker getChangeMaker() {
+        return changeMaker;
+    }
+
+    public boolean isExactChangeOnly() {
+        return changeMaker != null && changeMaker.isExactChangeOnly();
+    }
+
+    // Checks the coin against the tubes and credits it; returns false if the coin is handed back
+    public boolean acceptCoin(int amount) {
+        if (changeMaker != null) {
+            int tube = changeMaker.getTubes().tubeOf(amount);
+            if (tube < 0) {
+                System.out.println("Coin not accepted: " + amount);
+                return false;
+            }
+            if (changeMaker.isExactChangeOnly() && balance + amount > getItemPrice()) {
+                System.out.println("Exact change only. Coin returned: " + amount);
+                return false;
+            }
+            changeMaker.acceptCoin(tube);
+        }
+        balance += amount;
+        emit(TelemetryRing.COIN, amount);
+        return true;
+    }
+
+    // Sells the selected item and pays back any change; returns false, refunding the credit, if the
+    // slot sold out meanwhile
+    public boolean completeSale() {
+        if (!reduceltemInventory()) {
+            refundCredit();
+            return false;
+        }
+        balance -= getItemPrice();
+        emit(TelemetryRing.DISPENSE, getItemPrice());
+        returnChange();
+        return true;
+    }
+
+    // Pays the remaining balance back from the coin tubes and returns the amount paid
+    public int returnChange() {
+        if (changeMaker == null || balance == 0) {
+            return 0;
+        }
+        if (!changeMaker.makeChange(balance, changeCoins)) {
+            System.out.println("Unable to return change. Remaining credit: " + balance);
+            return 0;
+        }
+        int returned = balance;
+        balance = 0;
+        System.out.println("Change returned: " + returned);
+        return returned;
+    }
+
+    // Hands the whole balance back and returns the amount refunded. With coin tubes the refund is paid
+    // from them, and a balance they cannot pay stays as credit for another selection
+    public int refundCredit() {
+        if (changeMaker != null) {
+            return returnChange();
+        }
+        int refunded = balance;
+        balance = 0;
+        if (refunded > 0) {
+            System.out.println("Credit refunded: " + refunded);
+        }
+        return refunded;
     }
 
     public void setState(VendingMachineState newState) {
         this.currentState = newState;
     }
 
+    public VendingMachineState getState() {
+        return currentState;
+    }
+
     public void selectItem(String item) {
         currentState.selectItem(this, item);
     }
@@ -38,9 +142,27 @@ public class VendingMachine {
     }
 
     public int getInventory() {
+        return inventory.getTotalStock();
+    }
+
+    public SlotInventory getSlotInventory() {
         return inventory;
     }
 
+    // Returns the slot for an item name or slot code, or -1 if the machine does not sell it
+    public int findSlot(String item) {
+        int slot = inventory.find(item);
+        return slot >= 0 ? slot : fallbackSlot;
+    }
+
+    public int getSelectedSlot() {
+        return selectedSlot;
+    }
+
+    public void setSelectedSlot(int selectedSlot) {
+        this.selectedSlot = selectedSlot;
+    }
+
     public void addBalance(int amount) {
         balance += amount;
     }
@@ -57,12 +179,13 @@ public class VendingMachine {
         this.selectedItem = selectedItem;
     }
 
-    public void reduceltemInventory() {
-        inventory--;
+    public boolean reduceltemInventory() {
+        return inventory.sell(selectedSlot);
     }
  
+    // Nothing is owed until an item has been selected
     public int getItemPrice() {
-        return itemPrice;
+        return selectedSlot < 0 ? 0 : inventory.getPrice(selectedSlot);
     }
 
     public boolean isItemSelected() {
@@ -75,6 +198,6 @@ public class VendingMachine {
 
     @Override
     public String toString() {
-        return "\nStock remaining: " + inventory + "\nCurrent balance: " + balance;
+        return "\nStock remaining: " + inventory.getTotalStock() + "\nCurrent balance: " + balance;
     }
 }
\ No newline at end of file
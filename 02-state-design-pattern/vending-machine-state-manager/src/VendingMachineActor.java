@@ -0,0 +1,85 @@
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+public class VendingMachineActor {
+    private static final int MAX_BATCH = 64;
+
+    private final VendingMachine machine;
+    private final Queue<MachineCommand> mailbox;
+    private final Executor executor;
+    private final FleetMetrics metrics;
+    // Told about every command that threw, so a failure reaches the sender instead of stalling the actor
+    private final BiConsumer<MachineCommand, RuntimeException> failureHandler;
+    // True while the actor is queued or running on the executor, so at most one
+    // thread ever touches the machine and commands run in the order they arrived
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    public VendingMachineActor(VendingMachine machine, int mailboxCapacity, Executor executor, FleetMetrics metrics,
+                               BiConsumer<MachineCommand, RuntimeException> failureHandler) {
+        this.machine = machine;
+        this.mailbox = new ArrayBlockingQueue<>(mailboxCapacity);
+        this.executor = executor;
+        this.metrics = metrics;
+        this.failureHandler = failureHandler;
+    }
+
+    public VendingMachineActor(VendingMachine machine, int mailboxCapacity, Executor executor, FleetMetrics metrics) {
+        this(machine, mailboxCapacity, executor, metrics, VendingMachineActor::reportFailure);
+    }
+
+    // Returns false when the mailbox is full so the sender can back off
+    public boolean tell(MachineCommand command) {
+        if (!mailbox.offer(command)) {
+            metrics.recordRejected();
+            return false;
+        }
+        schedule();
+        return true;
+    }
+
+    public VendingMachine getMachine() {
+        return machine;
+    }
+
+    public boolean isIdle() {
+        return mailbox.isEmpty() && !scheduled.get();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::run);
+        }
+    }
+
+    private void run() {
+        try {
+            for (int i = 0; i < MAX_BATCH; i++) {
+                MachineCommand command = mailbox.poll();
+                if (command == null) {
+                    break;
+                }
+                try {
+                    command.applyTo(machine);
+                    metrics.recordProcessed(System.nanoTime() - command.getCreatedAt());
+                } catch (RuntimeException e) {
+                    metrics.recordFailed();
+                    failureHandler.accept(command, e);
+                }
+            }
+        } finally {
+            // Even if a handler or an Error escapes, the actor must be able to run again
+            scheduled.set(false);
+            if (!mailbox.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    // Default failure handler: the command is dropped and reported on stderr
+    public static void reportFailure(MachineCommand command, RuntimeException e) {
+        System.err.println("Command " + command.getType() + " failed: " + e);
+    }
+}
@@ -0,0 +1,69 @@
+public class VendingMachineFsm {
+    public enum State {
+        IDLE,
+        ITEM_SELECTED,
+        DISPENSING,
+        OUT_OF_ORDER
+    }
+
+    public enum Event {
+        SELECT_ITEM,
+        INSERT_COIN,
+        // Internal: fired after a coin, moves on to dispensing once the balance covers the price
+        PRICE_COVERED,
+        DISPENSE_ITEM,
+        SET_OUT_OF_ORDER
+    }
+
+    // Same transitions and side effects as the VendingMachineState classes, compiled into a dispatch
+    // table. The argument is the slot for SELECT_ITEM and the coin amount for INSERT_COIN
+    public static final StateMachine<State, Event, VendingMachine> MACHINE = StateMachine
+            .<State, Event, VendingMachine>builder(State.class, Event.class)
+            .transition(State.IDLE, Event.SELECT_ITEM, State.ITEM_SELECTED,
+                    (machine, slot) -> slot >= 0 && machine.getSlotInventory().getStock((int) slot) > 0,
+                    (machine, slot) -> {
+                        machine.setSelectedItem(machine.getSlotInventory().getName((int) slot));
+                        machine.setSelectedSlot((int) slot);
+                        machine.emit(TelemetryRing.SELECT, (int) slot);
+                        machine.setItemSelected(true);
+                    })
+            .transition(State.ITEM_SELECTED, Event.INSERT_COIN, State.ITEM_SELECTED,
+                    null, (machine, amount) -> machine.acceptCoin((int) amount))
+            .transition(State.ITEM_SELECTED, Event.PRICE_COVERED, State.DISPENSING,
+                    (machine, unused) -> machine.getBalance() >= machine.getItemPrice(), null)
+            .transition(State.DISPENSING, Event.DISPENSE_ITEM, State.IDLE,
+                    null, (machine, unused) -> machine.completeSale())
+            .transition(State.IDLE, Event.SET_OUT_OF_ORDER, State.OUT_OF_ORDER, null, VendingMachineFsm::outOfOrder)
+            .transition(State.ITEM_SELECTED, Event.SET_OUT_OF_ORDER, State.OUT_OF_ORDER, null, VendingMachineFsm::outOfOrder)
+            .transition(State.DISPENSING, Event.SET_OUT_OF_ORDER, State.OUT_OF_ORDER, null, VendingMachineFsm::outOfOrder)
+            .build();
+
+    private VendingMachineFsm() {
+    }
+
+    public static int selectItem(int state, VendingMachine machine, String item) {
+        return MACHINE.fire(state, Event.SELECT_ITEM, machine, machine.findSlot(item));
+    }
+
+    // Like ItemSelectedState.insertCoin, a coin that covers the price dispenses right away
+    public static int insertCoin(int state, VendingMachine machine, int amount) {
+        if (state != State.ITEM_SELECTED.ordinal()) {
+            return state;
+        }
+        state = MACHINE.fire(state, Event.INSERT_COIN, machine, amount);
+        state = MACHINE.fire(state, Event.PRICE_COVERED, machine, 0);
+        return MACHINE.fire(state, Event.DISPENSE_ITEM, machine, 0);
+    }
+
+    public static int dispenseItem(int state, VendingMachine machine) {
+        return MACHINE.fire(state, Event.DISPENSE_ITEM, machine, 0);
+    }
+
+    public static int setOutOfOrder(int state, VendingMachine machine) {
+        return MACHINE.fire(state, Event.SET_OUT_OF_ORDER, machine, 0);
+    }
+
+    private static void outOfOrder(VendingMachine machine, long unused) {
+        machine.emit(TelemetryRing.OUT_OF_ORDER, 0);
+    }
+}
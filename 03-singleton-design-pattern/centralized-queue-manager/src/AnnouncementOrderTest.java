@@ -0,0 +1,150 @@
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AnnouncementOrderTest {
+    private static final int ISSUERS = 8;
+    private static final int ANNOUNCEMENTS_PER_ISSUER = 50_000;
+    private static final int RESETS = 20;
+    private static final int CONSOLE_ANNOUNCEMENTS_PER_ISSUER = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        PrintStream console = System.out;
+        try {
+            System.setOut(new PrintStream(new ByteArrayOutputStream()));
+            run(console);
+            ByteArrayOutputStream printed = new ByteArrayOutputStream();
+            System.setOut(new PrintStream(printed, false, "UTF-8"));
+            runConsole(console, printed);
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    private static void run(PrintStream console) throws Exception {
+        HelpDesk helpDesk = HelpDesk.getInstance();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        // A small ring so the writer wraps around many times between resets
+        AsyncAnnouncementSink announcements = new AsyncAnnouncementSink(new PrintStream(bytes, false, "UTF-8"), 1024, 64);
+        helpDesk.setAnnouncementSink(announcements);
+        helpDesk.resetQueueNumber(1);
+
+        AtomicInteger announced = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(ISSUERS);
+        Thread[] issuers = new Thread[ISSUERS];
+        for (int t = 0; t < ISSUERS; t++) {
+            String desk = "Help Desk #" + t;
+            issuers[t] = new Thread(() -> {
+                started.countDown();
+                for (int i = 0; i < ANNOUNCEMENTS_PER_ISSUER; i++) {
+                    helpDesk.serveNextCustomer(desk);
+                    announced.incrementAndGet();
+                }
+            });
+            issuers[t].start();
+        }
+        started.await();
+        // Resets race the issuers: tickets taken just before a reset must still come out, and before the new epoch
+        for (int i = 0; i < RESETS; i++) {
+            Thread.sleep(2);
+            helpDesk.resetQueueNumber(1);
+        }
+        for (Thread issuer : issuers) {
+            issuer.join();
+        }
+        helpDesk.setAnnouncementSink(new ConsoleAnnouncementSink());
+
+        int lines = 0;
+        int restarts = 0;
+        int previous = 0;
+        boolean ordered = true;
+        for (String line : toText(bytes).split("\n")) {
+            int number = Integer.parseInt(line.substring("Currently serving Customer #".length(), line.indexOf(" at ")));
+            if (number == 1 && lines > 0) {
+                restarts++;
+            } else if (number != previous + 1) {
+                ordered = false;
+            }
+            previous = number;
+            lines++;
+        }
+        boolean writerStopped = true;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            writerStopped &= !thread.getName().equals("help-desk-announcer");
+        }
+        check(console, lines == announced.get(), "All " + announced.get() + " announcements written across resets, got " + lines);
+        check(console, ordered, "Announcements gap-free and strictly ordered by ticket within each of " + (restarts + 1) + " epochs");
+        check(console, restarts <= RESETS, "Ticket numbers only restart at a reset");
+        check(console, writerStopped, "Replaced sink's writer thread stopped");
+
+        AsyncAnnouncementSink closed = new AsyncAnnouncementSink(new PrintStream(new ByteArrayOutputStream()), 16, 4);
+        closed.close();
+        Thread restart = new Thread(() -> {
+            closed.restart(5);
+            closed.flush(10);
+        });
+        restart.start();
+        restart.join(5_000);
+        check(console, !restart.isAlive(), "Restart and flush return on a closed sink");
+    }
+
+    // The default sink prints on the desks' own threads, yet must keep ticket order like the old monitor did
+    private static void runConsole(PrintStream console, ByteArrayOutputStream printed) throws Exception {
+        HelpDesk helpDesk = HelpDesk.getInstance();
+        helpDesk.resetQueueNumber(1);
+        CountDownLatch started = new CountDownLatch(ISSUERS);
+        Thread[] issuers = new Thread[ISSUERS];
+        for (int t = 0; t < ISSUERS; t++) {
+            String desk = "Help Desk #" + t;
+            issuers[t] = new Thread(() -> {
+                started.countDown();
+                try {
+                    started.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < CONSOLE_ANNOUNCEMENTS_PER_ISSUER; i++) {
+                    helpDesk.serveNextCustomer(desk);
+                    // Queued and reserved tickets are skipped by the sink without leaving a hole
+                    if (i % 100 == 0) {
+                        helpDesk.reserveTickets(3);
+                    }
+                }
+            });
+            issuers[t].start();
+        }
+        for (Thread issuer : issuers) {
+            issuer.join();
+        }
+        helpDesk.displayCurrentQueueNumber();
+        System.out.flush();
+
+        int lines = 0;
+        int previous = 0;
+        boolean ordered = true;
+        for (String line : toText(printed).split("\n")) {
+            if (line.startsWith("Currently serving Customer #")) {
+                int number = Integer.parseInt(line.substring("Currently serving Customer #".length(), line.indexOf(" at ")));
+                ordered &= number > previous;
+                previous = number;
+                lines++;
+            }
+        }
+        int expected = ISSUERS * CONSOLE_ANNOUNCEMENTS_PER_ISSUER;
+        check(console, lines == expected, "Console sink wrote all " + expected + " announcements, got " + lines);
+        check(console, ordered, "Console sink prints concurrent announcements in ticket order");
+    }
+
+    private static String toText(ByteArrayOutputStream bytes) throws UnsupportedEncodingException {
+        return bytes.toString("UTF-8");
+    }
+
+    private static void check(PrintStream console, boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        console.println("PASSED: " + description);
+    }
+}
@@ -0,0 +1,14 @@
+public interface AnnouncementSink extends AutoCloseable {
+    void announce(int ticket, String desk);
+    void skip(int ticket);
+
+    // Waits until every ticket up to lastTicket has been written
+    void flush(int lastTicket);
+
+    // Continues from nextTicket; every earlier ticket must already be flushed
+    void restart(int nextTicket);
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,129 @@
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+public class AsyncAnnouncementSink implements AnnouncementSink {
+    private static final int NO_RESTART = Integer.MIN_VALUE;
+    private static final long IDLE_PARK_NANOS = 50_000;
+
+    private final PrintStream out;
+    private final int mask;
+    private final int maxBatch;
+    // Ticket t lives in slot t & mask and is marked with t + 1 once published, so the
+    // writer can tell which ticket a slot holds and always prints in ticket order
+    private final AtomicLongArray published;
+    private final String[] desks;
+    private final Thread writer;
+
+    private volatile int consumed;
+    private volatile int written;
+    private volatile int restartTo = NO_RESTART;
+    private volatile boolean running = true;
+
+    public AsyncAnnouncementSink(PrintStream out, int capacity, int maxBatch) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.out = out;
+        this.mask = capacity - 1;
+        this.maxBatch = maxBatch;
+        this.published = new AtomicLongArray(capacity);
+        this.desks = new String[capacity];
+        this.writer = new Thread(this::drain, "help-desk-announcer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public AsyncAnnouncementSink() {
+        this(System.out, 8192, 256);
+    }
+
+    @Override
+    public void announce(int ticket, String desk) {
+        publish(ticket, desk);
+    }
+
+    @Override
+    public void skip(int ticket) {
+        publish(ticket, null);
+    }
+
+    private void publish(int ticket, String desk) {
+        // Wait until the writer has moved past the ticket that last used this slot
+        while (ticket - consumed > mask) {
+            Thread.yield();
+        }
+        int slot = ticket & mask;
+        desks[slot] = desk;
+        published.set(slot, ticket + 1L);
+    }
+
+    @Override
+    public void flush(int lastTicket) {
+        while (writer.isAlive() && written <= lastTicket) {
+            LockSupport.unpark(writer);
+            Thread.yield();
+        }
+    }
+
+    @Override
+    public void restart(int nextTicket) {
+        restartTo = nextTicket;
+        LockSupport.unpark(writer);
+        // A closed sink has no writer left to pick the restart up
+        while (writer.isAlive() && restartTo != NO_RESTART) {
+            Thread.yield();
+        }
+    }
+
+    // Writes everything already published, then stops the writer thread
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        StringBuilder batch = new StringBuilder();
+        int expected = consumed;
+        int pending = 0;
+        while (true) {
+            if (restartTo != NO_RESTART) {
+                expected = restartTo;
+                consumed = expected;
+                written = expected;
+                restartTo = NO_RESTART;
+            }
+            int slot = expected & mask;
+            if (published.get(slot) == expected + 1L) {
+                String desk = desks[slot];
+                desks[slot] = null;
+                // Clear the mark so the same ticket number after a reset is not mistaken for this one
+                published.set(slot, 0);
+                if (desk != null) {
+                    batch.append("Currently serving Customer #").append(expected).append(" at ").append(desk).append('\n');
+                }
+                consumed = ++expected;
+                if (++pending < maxBatch) {
+                    continue;
+                }
+            }
+            if (pending > 0) {
+                out.print(batch);
+                out.flush();
+                batch.setLength(0);
+                pending = 0;
+                written = expected;
+            } else if (!running) {
+                return;
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import java.util.HashMap;
+import java.util.Map;
+
+// Prints announcements in ticket order on the desks' own threads: a ticket that arrives ahead of
+// an earlier one waits in a reorder buffer until whichever thread fills the gap prints it
+public class ConsoleAnnouncementSink implements AnnouncementSink {
+    // Early tickets by number; a null desk marks a ticket that is skipped rather than announced
+    private final Map<Integer, String> early = new HashMap<>();
+    // HelpDesk's first ticket, until restart() moves it
+    private int next = 1;
+
+    @Override
+    public synchronized void announce(int ticket, String desk) {
+        publish(ticket, desk);
+    }
+
+    @Override
+    public synchronized void skip(int ticket) {
+        publish(ticket, null);
+    }
+
+    private void publish(int ticket, String desk) {
+        if (ticket != next) {
+            early.put(ticket, desk);
+            return;
+        }
+        print(ticket, desk);
+        while (early.containsKey(++next)) {
+            print(next, early.remove(next));
+        }
+        notifyAll();
+    }
+
+    private static void print(int ticket, String desk) {
+        if (desk != null) {
+            System.out.println("Currently serving Customer #" + ticket + " at " + desk);
+        }
+    }
+
+    @Override
+    public synchronized void flush(int lastTicket) {
+        boolean interrupted = false;
+        while (next - lastTicket <= 0) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public synchronized void restart(int nextTicket) {
+        next = nextTicket;
+        early.clear();
+    }
+}
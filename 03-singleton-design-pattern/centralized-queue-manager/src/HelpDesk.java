@@ -1,28 +1,185 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntUnaryOperator;
+
 public class HelpDesk {
-    private static HelpDesk instance;
-    private int queueNumber = 1;
+    // High 32 bits: the epoch, bumped by every reset or sink change; low 32 bits: the next ticket
+    private final AtomicLong sequence = new AtomicLong(1);
+    private final ServiceQueueEngine serviceQueues = new ServiceQueueEngine();
+    private final Object epochLock = new Object();
+    private volatile QueueJournal journal;
+    private volatile Epoch epoch = new Epoch(0, new ConsoleAnnouncementSink(), null);
+
+    // The sink announcing one epoch's tickets; the previous epoch stays reachable until all of its tickets are written
+    private static final class Epoch {
+        final int id;
+        final AnnouncementSink announcements;
+        volatile Epoch previous;
+        volatile boolean started;
+
+        Epoch(int id, AnnouncementSink announcements, Epoch previous) {
+            this.id = id;
+            this.announcements = announcements;
+            this.previous = previous;
+            this.started = previous == null;
+        }
+    }
 
+    // Set -Dhelpdesk.journal=<file> to restore the queue number on startup without calling attachJournal
     private HelpDesk() {
+        String journalFile = System.getProperty("helpdesk.journal");
+        if (journalFile != null) {
+            try {
+                attachJournal(new QueueJournal(journalFile));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open queue journal " + journalFile, e);
+            }
+        }
+    }
+
+    private static class Holder {
+        private static final HelpDesk INSTANCE = new HelpDesk();
+    }
+
+    public static HelpDesk getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    // Restores the queue number from the journal and records every change to it from now on
+    public void attachJournal(QueueJournal journal) {
+        int next = journal.getNextQueueNumber();
+        this.journal = journal;
+        // Continue past the journal's epoch so tickets still in flight from before cannot outrank the restored number
+        switchEpoch(journal.getEpoch() + 1, current -> next, null);
+    }
+
+    // Writes the current sink's pending announcements and closes it before switching over
+    public void setAnnouncementSink(AnnouncementSink announcements) {
+        switchEpoch(0, current -> current, announcements);
+    }
+
+    public void displayCurrentQueueNumber() {
+        int next = flushAnnouncements();
+        System.out.println("\nCurrent Queue Number: " + next);
+    }
+
+    public void serveNextCustomer(String desk) {
+        long issued = issueTickets(1);
+        announcementsFor(issued).announce((int) issued, desk);
+    }
+
+    public QueueTicket enqueue(ServiceType serviceType, boolean priority) {
+        long issued = issueTickets(1);
+        int number = (int) issued;
+        announcementsFor(issued).skip(number);
+        QueueTicket ticket = new QueueTicket(number, serviceType, priority);
+        serviceQueues.enqueue(ticket);
+        return ticket;
+    }
+
+    public void assignDesk(String desk, ServiceType serviceType) {
+        serviceQueues.assignDesk(desk, serviceType);
     }
 
-    public static synchronized HelpDesk getInstance() {
-        if (instance == null) {
-            instance = new HelpDesk();
+    public QueueTicket serveNext(String desk, ServiceType... serviceTypes) {
+        QueueTicket ticket = serviceQueues.serveNext(desk, serviceTypes);
+        flushAnnouncements();
+        if (ticket == null) {
+            System.out.println("No customers waiting at " + desk);
+        } else {
+            System.out.println("Currently serving Customer " + ticket + " at " + desk);
         }
-        return instance;
+        return ticket;
+    }
+
+    public void displayWaitTimes() {
+        WaitTimeHistogram waitTimes = serviceQueues.getWaitTimes();
+        flushAnnouncements();
+        System.out.println("\nCustomers served: " + waitTimes.getCount());
+        System.out.println("Wait time p50: " + waitTimes.percentileMicros(50) + " us");
+        System.out.println("Wait time p90: " + waitTimes.percentileMicros(90) + " us");
+        System.out.println("Wait time p99: " + waitTimes.percentileMicros(99) + " us");
     }
 
-    public synchronized void displayCurrentQueueNumber() {
-        System.out.println("\nCurrent Queue Number: " + queueNumber);
+    public ServiceQueueEngine getServiceQueues() {
+        return serviceQueues;
     }
 
-    public synchronized void serveNextCustomer(String desk) {
-        System.out.println("Currently serving Customer #" + queueNumber + " at " + desk);
-        queueNumber++;
+    // Reserves a block of consecutive tickets for a desk and returns the first one
+    public int reserveTickets(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Ticket count must be at least 1");
+        }
+        long issued = issueTickets(count);
+        AnnouncementSink announcements = announcementsFor(issued);
+        int first = (int) issued;
+        for (int i = 0; i < count; i++) {
+            announcements.skip(first + i);
+        }
+        return first;
     }
 
-    public synchronized void resetQueueNumber(int num) {
-        queueNumber = num;
-        System.out.println("\nReset Queue Number to: " + queueNumber + "\n");
+    public void resetQueueNumber(int num) {
+        switchEpoch(0, current -> num, null);
+        System.out.println("\nReset Queue Number to: " + num + "\n");
+    }
+
+    private long issueTickets(int count) {
+        long issued = sequence.getAndAdd(count);
+        QueueJournal current = journal;
+        if (current != null) {
+            current.record(issued + count);
+        }
+        return issued;
+    }
+
+    // The sink of the epoch a ticket was issued in, once that sink has been restarted at the epoch's first ticket
+    private AnnouncementSink announcementsFor(long issued) {
+        int id = (int) (issued >>> 32);
+        Epoch owner = epoch;
+        while (owner.id != id) {
+            owner = owner.previous;
+        }
+        while (!owner.started) {
+            Thread.yield();
+        }
+        return owner.announcements;
+    }
+
+    // Waits for every ticket issued so far to be announced and returns the next ticket
+    private int flushAnnouncements() {
+        long next = sequence.get();
+        announcementsFor(next).flush((int) next - 1);
+        return (int) next;
+    }
+
+    // Starts a new epoch at the ticket chosen by nextTicket; tickets still being issued in the old
+    // epoch are written by the old sink first, so announcements never interleave across a reset
+    private void switchEpoch(int minimumId, IntUnaryOperator nextTicket, AnnouncementSink announcements) {
+        synchronized (epochLock) {
+            Epoch previous = epoch;
+            AnnouncementSink sink = announcements != null ? announcements : previous.announcements;
+            Epoch next = new Epoch(Math.max(previous.id + 1, minimumId), sink, previous);
+            // Visible before any ticket can be issued in it
+            epoch = next;
+            long before;
+            long after;
+            do {
+                before = sequence.get();
+                after = ((long) next.id << 32) | (nextTicket.applyAsInt((int) before) & 0xFFFFFFFFL);
+            } while (!sequence.compareAndSet(before, after));
+            QueueJournal current = journal;
+            if (current != null) {
+                current.record(after);
+            }
+            previous.announcements.flush((int) before - 1);
+            if (sink != previous.announcements) {
+                previous.announcements.close();
+            }
+            sink.restart((int) after);
+            next.started = true;
+            next.previous = null;
+        }
     }
 }
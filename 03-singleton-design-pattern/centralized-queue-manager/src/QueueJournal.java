@@ -0,0 +1,93 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class QueueJournal implements AutoCloseable {
+    private static final int MAGIC = 0x514A5232;
+    private static final int POSITION_OFFSET = 8;
+    private static final int FILE_SIZE = 16;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final ScheduledExecutorService flusher;
+    // The help desk's epoch in the high 32 bits and the next ticket in the low 32 bits, so a
+    // reset (a later epoch) always outranks tickets still being recorded from before it
+    private final AtomicLong position;
+
+    private volatile boolean dirty;
+
+    // Layout: [magic][padding][position]; the position is only ever raised, never appended to
+    public QueueJournal(String fileName, long flushIntervalMillis) throws IOException {
+        this.file = new RandomAccessFile(fileName, "rw");
+        this.buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putLong(POSITION_OFFSET, 1);
+            buffer.putInt(0, MAGIC);
+            buffer.force();
+        }
+        this.position = new AtomicLong(buffer.getLong(POSITION_OFFSET));
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "queue-journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public QueueJournal(String fileName) throws IOException {
+        this(fileName, 5);
+    }
+
+    public int getEpoch() {
+        return (int) (position.get() >>> 32);
+    }
+
+    public int getNextQueueNumber() {
+        return (int) position.get();
+    }
+
+    // Raises the recorded position; issuers never block each other or a reset
+    public void record(long next) {
+        long current = position.get();
+        while (next > current) {
+            if (position.compareAndSet(current, next)) {
+                store();
+                return;
+            }
+            current = position.get();
+        }
+    }
+
+    // Copies the position into the mapped file. The same-value CAS after each write fails if the
+    // position moved meanwhile, so the last write to the file always carries the highest position.
+    private void store() {
+        long value;
+        do {
+            value = position.get();
+            buffer.putLong(POSITION_OFFSET, value);
+        } while (!position.compareAndSet(value, value));
+        dirty = true;
+    }
+
+    public void flush() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flusher.shutdown();
+        flush();
+        file.close();
+    }
+}
@@ -0,0 +1,100 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class QueueJournalTest {
+    private static final int ISSUERS = 4;
+    private static final int TICKETS_PER_ISSUER = 25_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            runChild(args[0]);
+            return;
+        }
+        File file = File.createTempFile("queue", ".journal");
+        file.delete();
+
+        // Each child restores from the journal on its own via -Dhelpdesk.journal and is killed without closing it
+        int next = 1 + ISSUERS * TICKETS_PER_ISSUER;
+        check(runParent(file, "issue").equals("issued " + (next - 1)), "Child issued " + (next - 1) + " tickets and crashed");
+        check(runParent(file, "report").equals("Current Queue Number: " + next), "Restored queue number continues at " + next);
+        check(runParent(file, "issue").equals("issued " + (2 * next - 2)), "Second run continues without reusing tickets");
+        check(runParent(file, "reset").equals("issued 509"), "Reset to 500 and ten tickets, then crashed");
+        check(runParent(file, "report").equals("Current Queue Number: 510"), "Reset survives the crash: next is 510");
+        file.delete();
+
+        // Tickets still being recorded from before a reset must not raise the number past it
+        File direct = File.createTempFile("queue", ".journal");
+        direct.delete();
+        try (QueueJournal journal = new QueueJournal(direct.getPath())) {
+            journal.record(9_000);
+            journal.record((3L << 32) | 50);
+            journal.record(9_999);
+            journal.record((2L << 32) | 70_000);
+            check(journal.getNextQueueNumber() == 50 && journal.getEpoch() == 3, "Late records from an older epoch are ignored");
+        }
+        try (QueueJournal journal = new QueueJournal(direct.getPath())) {
+            check(journal.getNextQueueNumber() == 50 && journal.getEpoch() == 3, "Epoch and number reopen from the file");
+        }
+        direct.delete();
+    }
+
+    private static String runParent(File journal, String mode) throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process child = new ProcessBuilder(java, "-Dhelpdesk.journal=" + journal.getPath(),
+                "-cp", System.getProperty("java.class.path"), "QueueJournalTest", mode)
+                .redirectErrorStream(true)
+                .start();
+        String last = null;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8))) {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                last = line;
+            }
+        }
+        child.waitFor();
+        return last;
+    }
+
+    private static void runChild(String mode) throws Exception {
+        HelpDesk helpDesk = HelpDesk.getInstance();
+        if (mode.equals("report")) {
+            helpDesk.displayCurrentQueueNumber();
+            Runtime.getRuntime().halt(0);
+        }
+        if (mode.equals("reset")) {
+            helpDesk.resetQueueNumber(500);
+            QueueTicket last = null;
+            for (int i = 0; i < 10; i++) {
+                last = helpDesk.enqueue(ServiceType.LOANS, false);
+            }
+            System.out.println("issued " + last.getNumber());
+            Runtime.getRuntime().halt(0);
+        }
+        AtomicInteger highest = new AtomicInteger();
+        Thread[] issuers = new Thread[ISSUERS];
+        for (int t = 0; t < ISSUERS; t++) {
+            issuers[t] = new Thread(() -> {
+                for (int i = 0; i < TICKETS_PER_ISSUER; i += 5) {
+                    int first = helpDesk.reserveTickets(5);
+                    highest.accumulateAndGet(first + 4, Math::max);
+                }
+            });
+            issuers[t].start();
+        }
+        for (Thread issuer : issuers) {
+            issuer.join();
+        }
+        System.out.println("issued " + highest.get());
+        // No close and no force: only what the issuers wrote into the mapped file survives
+        Runtime.getRuntime().halt(0);
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
@@ -0,0 +1,34 @@
+public class QueueTicket {
+    private final int number;
+    private final ServiceType serviceType;
+    private final boolean priority;
+    private final long enqueuedAt;
+
+    public QueueTicket(int number, ServiceType serviceType, boolean priority) {
+        this.number = number;
+        this.serviceType = serviceType;
+        this.priority = priority;
+        this.enqueuedAt = System.nanoTime();
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public ServiceType getServiceType() {
+        return serviceType;
+    }
+
+    public boolean isPriority() {
+        return priority;
+    }
+
+    public long getEnqueuedAt() {
+        return enqueuedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + number + " (" + serviceType + (priority ? ", Priority" : "") + ")";
+    }
+}
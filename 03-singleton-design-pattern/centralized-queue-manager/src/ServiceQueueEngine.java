@@ -0,0 +1,104 @@
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class ServiceQueueEngine {
+    // Consecutive customers a desk takes from its own service before it must look at the others
+    private static final int MAX_AFFINITY_STREAK = 4;
+
+    private final Map<ServiceType, Queue<QueueTicket>> priorityLanes = new EnumMap<>(ServiceType.class);
+    private final Map<ServiceType, Queue<QueueTicket>> regularLanes = new EnumMap<>(ServiceType.class);
+    private final WaitTimeHistogram waitTimes = new WaitTimeHistogram();
+    private final Map<String, DeskAffinity> desks = new ConcurrentHashMap<>();
+
+    public ServiceQueueEngine() {
+        for (ServiceType type : ServiceType.values()) {
+            priorityLanes.put(type, new ConcurrentLinkedQueue<>());
+            regularLanes.put(type, new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    public void enqueue(QueueTicket ticket) {
+        Map<ServiceType, Queue<QueueTicket>> lanes = ticket.isPriority() ? priorityLanes : regularLanes;
+        lanes.get(ticket.getServiceType()).offer(ticket);
+    }
+
+    // Pins a desk to one service; without a pin a desk sticks to the service it served last
+    public void assignDesk(String desk, ServiceType serviceType) {
+        affinityOf(desk).assigned = serviceType;
+    }
+
+    // Priority lanes are always drained first. Within each, the desk serves its own service before
+    // the others, which it takes in round-robin order, and never more than MAX_AFFINITY_STREAK in
+    // a row while other lanes are waiting
+    public QueueTicket serveNext(String desk, ServiceType... serviceTypes) {
+        if (serviceTypes.length == 0) {
+            serviceTypes = ServiceType.values();
+        }
+        DeskAffinity affinity = affinityOf(desk);
+        QueueTicket ticket;
+        synchronized (affinity) {
+            ticket = affinity.poll(priorityLanes, serviceTypes);
+            if (ticket == null) {
+                ticket = affinity.poll(regularLanes, serviceTypes);
+            }
+        }
+        if (ticket != null) {
+            waitTimes.record(System.nanoTime() - ticket.getEnqueuedAt());
+        }
+        return ticket;
+    }
+
+    private DeskAffinity affinityOf(String desk) {
+        return desks.computeIfAbsent(desk, name -> new DeskAffinity());
+    }
+
+    // Per-desk scheduling state; only the desk's own calls touch it, so its lock is uncontended
+    private static final class DeskAffinity {
+        volatile ServiceType assigned;
+        ServiceType lastServed;
+        int streak;
+        int nextLane;
+
+        QueueTicket poll(Map<ServiceType, Queue<QueueTicket>> lanes, ServiceType[] serviceTypes) {
+            ServiceType home = assigned != null ? assigned : lastServed;
+            if (home != null && streak < MAX_AFFINITY_STREAK && contains(serviceTypes, home)) {
+                QueueTicket ticket = lanes.get(home).poll();
+                if (ticket != null) {
+                    streak++;
+                    return ticket;
+                }
+            }
+            for (int i = 0; i < serviceTypes.length; i++) {
+                int lane = (nextLane + i) % serviceTypes.length;
+                QueueTicket ticket = lanes.get(serviceTypes[lane]).poll();
+                if (ticket != null) {
+                    nextLane = lane + 1;
+                    lastServed = serviceTypes[lane];
+                    streak = 0;
+                    return ticket;
+                }
+            }
+            return null;
+        }
+
+        private static boolean contains(ServiceType[] serviceTypes, ServiceType serviceType) {
+            for (ServiceType candidate : serviceTypes) {
+                if (candidate == serviceType) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public int getWaitingCount(ServiceType serviceType) {
+        return priorityLanes.get(serviceType).size() + regularLanes.get(serviceType).size();
+    }
+
+    public WaitTimeHistogram getWaitTimes() {
+        return waitTimes;
+    }
+}
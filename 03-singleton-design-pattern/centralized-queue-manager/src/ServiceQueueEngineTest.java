@@ -0,0 +1,132 @@
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ServiceQueueEngineTest {
+    private static final int DESKS = 4;
+    private static final int TICKETS = 200_000;
+
+    public static void main(String[] args) throws Exception {
+        ServiceQueueEngine engine = new ServiceQueueEngine();
+        engine.enqueue(new QueueTicket(1, ServiceType.LOANS, false));
+        engine.enqueue(new QueueTicket(2, ServiceType.CLAIMS, true));
+        engine.enqueue(new QueueTicket(3, ServiceType.MEMBERSHIP, false));
+        engine.enqueue(new QueueTicket(4, ServiceType.LOANS, true));
+        check(engine.serveNext("Help Desk #1").isPriority() && engine.serveNext("Help Desk #1").isPriority(),
+                "Priority customers are served before regular ones");
+        check(engine.serveNext("Help Desk #2", ServiceType.MEMBERSHIP).getNumber() == 3,
+                "A desk only serves the services it handles");
+        check(engine.serveNext("Help Desk #2", ServiceType.MEMBERSHIP) == null && engine.getWaitingCount(ServiceType.LOANS) == 1,
+                "Other services are left waiting");
+        engine.serveNext("Help Desk #1");
+
+        // An assigned desk drains its own service first, even when it was queued last
+        for (int i = 0; i < 3; i++) {
+            engine.enqueue(new QueueTicket(10 + i, ServiceType.MEMBERSHIP, false));
+        }
+        for (int i = 0; i < 3; i++) {
+            engine.enqueue(new QueueTicket(20 + i, ServiceType.CLAIMS, false));
+        }
+        engine.assignDesk("Claims Desk", ServiceType.CLAIMS);
+        boolean claimsFirst = engine.serveNext("Claims Desk").getServiceType() == ServiceType.CLAIMS;
+        for (int i = 0; i < 2; i++) {
+            claimsFirst &= engine.serveNext("Claims Desk").getServiceType() == ServiceType.CLAIMS;
+        }
+        check(claimsFirst, "Assigned desk serves its own service first");
+        check(engine.serveNext("Claims Desk").getServiceType() == ServiceType.MEMBERSHIP,
+                "Assigned desk falls back to other services when its own is empty");
+
+        // An unassigned desk sticks to the service it last served while other lanes are waiting too
+        for (int i = 0; i < 2; i++) {
+            engine.enqueue(new QueueTicket(30 + i, ServiceType.LOANS, false));
+            engine.enqueue(new QueueTicket(40 + i, ServiceType.CLAIMS, false));
+        }
+        ServiceType first = engine.serveNext("Help Desk #3").getServiceType();
+        check(engine.serveNext("Help Desk #3").getServiceType() == first, "Unassigned desk keeps its last service");
+        for (int i = 0; i < 4; i++) {
+            engine.serveNext("Help Desk #3");
+        }
+        check(engine.serveNext("Help Desk #3") == null, "Unassigned desk drains the remaining lanes");
+
+        // Fairness: a desk pinned to a busy service still reaches the others
+        ServiceQueueEngine busy = new ServiceQueueEngine();
+        for (int i = 0; i < 100; i++) {
+            for (ServiceType type : ServiceType.values()) {
+                busy.enqueue(new QueueTicket(i, type, false));
+            }
+        }
+        busy.assignDesk("Loans Desk", ServiceType.LOANS);
+        Map<ServiceType, Integer> served = new EnumMap<>(ServiceType.class);
+        for (int i = 0; i < 20; i++) {
+            served.merge(busy.serveNext("Loans Desk").getServiceType(), 1, Integer::sum);
+        }
+        check(served.get(ServiceType.LOANS) >= 14 && served.size() == ServiceType.values().length,
+                "Pinned desk favours its service but serves every lane: " + served);
+
+        // Desks draining shared lanes concurrently serve every ticket exactly once
+        ServiceQueueEngine shared = new ServiceQueueEngine();
+        Set<Integer> numbers = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(TICKETS);
+        Thread producer = new Thread(() -> {
+            ServiceType[] types = ServiceType.values();
+            for (int i = 0; i < TICKETS; i++) {
+                shared.enqueue(new QueueTicket(i, types[i % types.length], i % 7 == 0));
+            }
+        });
+        Thread[] desks = new Thread[DESKS];
+        for (int t = 0; t < DESKS; t++) {
+            String desk = "Help Desk #" + t;
+            ServiceType home = ServiceType.values()[t % ServiceType.values().length];
+            desks[t] = new Thread(() -> {
+                shared.assignDesk(desk, home);
+                while (remaining.get() > 0) {
+                    QueueTicket ticket = shared.serveNext(desk);
+                    if (ticket == null) {
+                        Thread.yield();
+                    } else {
+                        remaining.decrementAndGet();
+                        if (!numbers.add(ticket.getNumber())) {
+                            duplicates.incrementAndGet();
+                        }
+                    }
+                }
+            });
+        }
+        producer.start();
+        for (Thread desk : desks) {
+            desk.start();
+        }
+        producer.join();
+        for (Thread desk : desks) {
+            desk.join();
+        }
+        check(numbers.size() == TICKETS && duplicates.get() == 0, DESKS + " desks served all " + TICKETS + " tickets once");
+        check(shared.getWaitTimes().getCount() == TICKETS, "Every served ticket recorded a wait time");
+
+        WaitTimeHistogram histogram = new WaitTimeHistogram();
+        for (int i = 0; i < 50; i++) {
+            histogram.record(1_000);
+        }
+        for (int i = 0; i < 40; i++) {
+            histogram.record(1_000_000);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(100_000_000);
+        }
+        check(histogram.getCount() == 100, "Histogram counts every wait");
+        check(histogram.percentileMicros(50) == 2 && histogram.percentileMicros(90) == 1024
+                && histogram.percentileMicros(99) == 131072, "Percentiles land in the right power-of-two buckets");
+        histogram.reset();
+        check(histogram.getCount() == 0 && histogram.percentileMicros(99) == 0, "Reset clears the histogram");
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
@@ -0,0 +1,5 @@
+public enum ServiceType {
+    MEMBERSHIP,
+    LOANS,
+    CLAIMS
+}
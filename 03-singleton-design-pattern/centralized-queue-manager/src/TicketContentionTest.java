@@ -0,0 +1,180 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class TicketContentionTest {
+    private static final int DESKS = 8;
+    private static final int TICKETS_PER_DESK = 500_000;
+    private static final int SCALING_TICKETS = 4_000_000;
+    private static final int MAX_SCALING_DESKS = 64;
+
+    public static void main(String[] args) throws Exception {
+        HelpDesk helpDesk = HelpDesk.getInstance();
+        CountingSink counts = new CountingSink(DESKS * TICKETS_PER_DESK + 1);
+        helpDesk.setAnnouncementSink(counts);
+
+        // Desks mix single tickets with reserved blocks; every issued ticket reaches the sink once
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] desks = new Thread[DESKS];
+        for (int t = 0; t < DESKS; t++) {
+            String desk = "Help Desk #" + t;
+            desks[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                int issued = 0;
+                while (issued < TICKETS_PER_DESK) {
+                    int block = Math.min(random.nextInt(1, 9), TICKETS_PER_DESK - issued);
+                    if (block == 1) {
+                        helpDesk.serveNextCustomer(desk);
+                    } else {
+                        helpDesk.reserveTickets(block);
+                    }
+                    issued += block;
+                }
+            });
+            desks[t].start();
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Thread desk : desks) {
+            desk.join();
+        }
+        long elapsed = System.nanoTime() - began;
+
+        int total = DESKS * TICKETS_PER_DESK;
+        boolean unique = true;
+        boolean gapFree = true;
+        for (int ticket = 1; ticket <= total; ticket++) {
+            int seen = counts.get(ticket);
+            unique &= seen <= 1;
+            gapFree &= seen >= 1;
+        }
+        check(unique, "No ticket issued twice across " + DESKS + " desks");
+        check(gapFree && counts.get(0) == 0, "Tickets 1.." + total + " issued without gaps");
+        helpDesk.displayCurrentQueueNumber();
+        System.out.printf("Throughput: %.1f million tickets/s%n", total * 1_000.0 / elapsed);
+
+        compareScaling(helpDesk);
+    }
+
+    // Tickets per second from 1 to 64 desks, against the old fully synchronized HelpDesk. Both look the
+    // instance up on every call, as desks did, and announce into a sink that does nothing, so only the
+    // cost of handing out tickets is measured
+    private static void compareScaling(HelpDesk helpDesk) throws InterruptedException {
+        helpDesk.setAnnouncementSink(NullSink.INSTANCE);
+        // Warm both paths up before timing anything
+        measure(8, () -> HelpDesk.getInstance().serveNextCustomer("Help Desk"));
+        measure(8, () -> SynchronizedHelpDesk.getInstance().serveNextCustomer("Help Desk"));
+        System.out.println("\nDesks   HelpDesk (M tickets/s)   synchronized (M tickets/s)");
+        for (int desks = 1; desks <= MAX_SCALING_DESKS; desks *= 2) {
+            double atomic = measure(desks, () -> HelpDesk.getInstance().serveNextCustomer("Help Desk"));
+            double locked = measure(desks, () -> SynchronizedHelpDesk.getInstance().serveNextCustomer("Help Desk"));
+            System.out.printf("%5d   %22.1f   %26.1f%n", desks, atomic, locked);
+        }
+        helpDesk.setAnnouncementSink(new ConsoleAnnouncementSink());
+    }
+
+    private static double measure(int desks, Runnable serve) throws InterruptedException {
+        int perDesk = SCALING_TICKETS / desks;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[desks];
+        for (int t = 0; t < desks; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perDesk; i++) {
+                    serve.run();
+                }
+            });
+            threads[t].start();
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return (double) perDesk * desks * 1_000 / (System.nanoTime() - began);
+    }
+
+    // HelpDesk as it was before the atomic counter: every lookup and every ticket takes one monitor
+    private static final class SynchronizedHelpDesk {
+        private static SynchronizedHelpDesk instance;
+        private int queueNumber = 1;
+
+        static synchronized SynchronizedHelpDesk getInstance() {
+            if (instance == null) {
+                instance = new SynchronizedHelpDesk();
+            }
+            return instance;
+        }
+
+        synchronized void serveNextCustomer(String desk) {
+            NullSink.INSTANCE.announce(queueNumber, desk);
+            queueNumber++;
+        }
+    }
+
+    private static final class NullSink implements AnnouncementSink {
+        static final NullSink INSTANCE = new NullSink();
+
+        @Override
+        public void announce(int ticket, String desk) {
+        }
+
+        @Override
+        public void skip(int ticket) {
+        }
+
+        @Override
+        public void flush(int lastTicket) {
+        }
+
+        @Override
+        public void restart(int nextTicket) {
+        }
+    }
+
+    private static final class CountingSink implements AnnouncementSink {
+        private final AtomicIntegerArray counts;
+
+        CountingSink(int size) {
+            this.counts = new AtomicIntegerArray(size);
+        }
+
+        int get(int ticket) {
+            return counts.get(ticket);
+        }
+
+        @Override
+        public void announce(int ticket, String desk) {
+            counts.incrementAndGet(ticket);
+        }
+
+        @Override
+        public void skip(int ticket) {
+            counts.incrementAndGet(ticket);
+        }
+
+        @Override
+        public void flush(int lastTicket) {
+        }
+
+        @Override
+        public void restart(int nextTicket) {
+        }
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + description);
+        }
+        System.out.println("PASSED: " + description);
+    }
+}
@@ -0,0 +1,44 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class WaitTimeHistogram {
+    private static final int BUCKETS = 64;
+
+    // Bucket i counts waits in [2^(i-1), 2^i) microseconds
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long waitNanos) {
+        long micros = Math.max(0, waitNanos / 1000);
+        counts.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(micros));
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    // Returns the upper bound, in microseconds, of the bucket holding the given percentile
+    public long percentileMicros(double percentile) {
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return i == 0 ? 0 : 1L << Math.min(i, 62);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+}